@@ -15,7 +15,11 @@ public class CircularOverScroller {
 
     private final boolean mFlywheel;
 
+    // the latest frame time seen, so a late or reordered frame never steps backwards
+    private long mLastFrameTimeNanos;
+
     private static final int DEFAULT_DURATION = 250;
+    private static final float NANOS_PER_MS = 1000000.0f;
     private static final int SCROLL_MODE = 0;
     private static final int FLING_MODE = 1;
 
@@ -185,16 +189,28 @@ public class CircularOverScroller {
      * animation is not yet finished.
      */
     public boolean computeScrollOffset() {
+        return computeScrollOffset(System.nanoTime());
+    }
+
+    /**
+     * Call this when you want to know the location at a given frame. If it returns true, the
+     * animation is not yet finished.
+     *
+     * @param frameTimeNanos the frame time, usually from {@link android.view.Choreographer},
+     *                       in the {@link System#nanoTime()} time base.
+     */
+    public boolean computeScrollOffset(long frameTimeNanos) {
         if (isFinished()) {
             return false;
         }
 
+        if (frameTimeNanos < mLastFrameTimeNanos)
+            frameTimeNanos = mLastFrameTimeNanos;
+        mLastFrameTimeNanos = frameTimeNanos;
+
         switch (mMode) {
             case SCROLL_MODE:
-                long time = AnimationUtils.currentAnimationTimeMillis();
-                // Any scroller can be used for time, since they were started
-                // together in scroll mode. We use X here.
-                final long elapsedTime = time - mScrollerTheta.mStartTime;
+                final float elapsedTime = Math.max(0, (frameTimeNanos - mScrollerTheta.mStartTime) / NANOS_PER_MS);
 
                 final int duration = mScrollerTheta.mDuration;
                 if (elapsedTime < duration) {
@@ -207,8 +223,8 @@ public class CircularOverScroller {
 
             case FLING_MODE:
                 if (!mScrollerTheta.mFinished) {
-                    if (!mScrollerTheta.update()) {
-                        if (!mScrollerTheta.continueWhenFinished()) {
+                    if (!mScrollerTheta.update(frameTimeNanos)) {
+                        if (!mScrollerTheta.continueWhenFinished(frameTimeNanos)) {
                             mScrollerTheta.finish();
                         }
                     }
@@ -354,7 +370,7 @@ public class CircularOverScroller {
         // Constant current deceleration
         private float mDeceleration;
 
-        // Animation starting time, in system milliseconds
+        // Animation starting time, in System.nanoTime() nanoseconds
         private long mStartTime;
 
         // Animation duration, in milliseconds
@@ -475,13 +491,23 @@ public class CircularOverScroller {
             }
         }
 
+        /**
+         * @return the time of the frame being processed, so an animation started from a touch
+         * event or a frame callback steps by a whole frame on the next one. the clock is
+         * {@link android.os.SystemClock#uptimeMillis()}, the {@link System#nanoTime()} time base
+         * the frame times are in.
+         */
+        private static long currentFrameTimeNanos() {
+            return AnimationUtils.currentAnimationTimeMillis() * 1000000L;
+        }
+
         void startScroll(float start, float distance, int duration) {
             mFinished = false;
 
             mCurrentPosition = mStart = start;
             mFinal = start + distance;
 
-            mStartTime = AnimationUtils.currentAnimationTimeMillis();
+            mStartTime = currentFrameTimeNanos();
             mDuration = duration;
 
             // Unused
@@ -503,8 +529,8 @@ public class CircularOverScroller {
         }
 
         void extendDuration(int extend) {
-            final long time = AnimationUtils.currentAnimationTimeMillis();
-            final int elapsedTime = (int) (time - mStartTime);
+            final long time = currentFrameTimeNanos();
+            final int elapsedTime = (int) ((time - mStartTime) / 1000000L);
             mDuration = elapsedTime + extend;
             mFinished = false;
         }
@@ -515,7 +541,7 @@ public class CircularOverScroller {
             mCurrentPosition = mStart = mFinal = start;
             mVelocity = 0;
 
-            mStartTime = AnimationUtils.currentAnimationTimeMillis();
+            mStartTime = currentFrameTimeNanos();
             mDuration = 0;
 
             if (start < min) {
@@ -546,7 +572,7 @@ public class CircularOverScroller {
             mFinished = false;
             mCurrVelocity = mVelocity = velocity;
             mDuration = mSplineDuration = 0;
-            mStartTime = AnimationUtils.currentAnimationTimeMillis();
+            mStartTime = currentFrameTimeNanos();
             mCurrentPosition = mStart = start;
 
             if (start > max || start < min) {
@@ -603,7 +629,7 @@ public class CircularOverScroller {
             final float distanceToEdge = Math.abs(end - start);
             final float totalDuration = (float) Math.sqrt(
                     2.0 * (distanceToApex + distanceToEdge) / Math.abs(mDeceleration));
-            mStartTime -= (int) (1000.0f * (totalDuration - durationToApex));
+            mStartTime -= (long) (1000000000.0 * (totalDuration - durationToApex));
             mCurrentPosition = mStart = end;
             mVelocity = (int) (- mDeceleration * totalDuration);
         }
@@ -641,7 +667,7 @@ public class CircularOverScroller {
             // mState is used to detect successive notifications
             if (mState == SPLINE) {
                 mOver = over;
-                mStartTime = AnimationUtils.currentAnimationTimeMillis();
+                mStartTime = currentFrameTimeNanos();
                 // We were in fling/scroll mode before: current velocity is such that distance to
                 // edge is increasing. This ensures that startAfterEdge will not start a new fling.
                 startAfterEdge(start, end, end, (int) mCurrVelocity);
@@ -667,7 +693,7 @@ public class CircularOverScroller {
             mDuration = - (int) (1000.0f * mVelocity / mDeceleration);
         }
 
-        boolean continueWhenFinished() {
+        boolean continueWhenFinished(long time) {
             switch (mState) {
                 case SPLINE:
                     // Duration from start to null velocity
@@ -677,7 +703,7 @@ public class CircularOverScroller {
                         // TODO Better compute speed when edge was reached
                         mVelocity = (int) mCurrVelocity;
                         mDeceleration = getDeceleration(mVelocity);
-                        mStartTime += mDuration;
+                        mStartTime += mDuration * 1000000L;
                         onEdgeReached();
                     } else {
                         // Normal stop, no need to continue
@@ -685,27 +711,27 @@ public class CircularOverScroller {
                     }
                     break;
                 case BALLISTIC:
-                    mStartTime += mDuration;
+                    mStartTime += mDuration * 1000000L;
                     startSpringback(mFinal, mStart, 0);
                     break;
                 case CUBIC:
                     return false;
             }
 
-            update();
+            update(time);
             return true;
         }
 
         /*
-         * Update the current position and velocity for current time. Returns
+         * Update the current position and velocity for the given frame time. Returns
          * true if update has been done and false if animation duration has been
          * reached.
          */
-        boolean update() {
-            final long time = AnimationUtils.currentAnimationTimeMillis();
-            final long currentTime = time - mStartTime;
+        boolean update(long time) {
+            // in milliseconds, but keep the sub-millisecond part for high refresh rates
+            final float currentTime = (time - mStartTime) / NANOS_PER_MS;
 
-            if (currentTime == 0) {
+            if (currentTime <= 0) {
                 // Skip work but report that we're still going if we have a nonzero duration.
                 return mDuration > 0;
             }
@@ -716,7 +742,7 @@ public class CircularOverScroller {
             double distance = 0.0;
             switch (mState) {
                 case SPLINE: {
-                    final float t = (float) currentTime / mSplineDuration;
+                    final float t = currentTime / mSplineDuration;
                     final int index = (int) (NB_SAMPLES * t);
                     float distanceCoef = 1.f;
                     float velocityCoef = 0.f;
@@ -742,7 +768,7 @@ public class CircularOverScroller {
                 }
 
                 case CUBIC: {
-                    final float t = (float) (currentTime) / mDuration;
+                    final float t = currentTime / mDuration;
                     final float t2 = t * t;
                     final float sign = Math.signum(mVelocity);
                     distance = sign * mOver * (3.0f * t2 - 2.0f * t * t2);
@@ -58,6 +58,17 @@ public class CircularScroller {
         return mScroller.computeScrollOffset();
     }
 
+    /**
+     * Same as {@link #computeScrollOffset()}, but computes the location at the given frame time
+     * instead of the current time.
+     *
+     * @param frameTimeNanos the frame time, usually from {@link android.view.Choreographer},
+     *                       in the {@link System#nanoTime()} time base.
+     */
+    public boolean computeScrollOffset(long frameTimeNanos) {
+        return mScroller.computeScrollOffset(frameTimeNanos);
+    }
+
     /**
      * Start scrolling by providing a starting point and the distance to travel.
      * The scroll will use the default value of 250 milliseconds for the
@@ -1,17 +1,36 @@
 package android.support.v7.widget;
 
+import android.animation.ValueAnimator;
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v4.os.TraceCompat;
+import android.support.v4.view.InputDeviceCompat;
+import android.support.v4.view.MotionEventCompat;
 import android.support.v4.view.VelocityTrackerCompat;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.ViewConfigurationCompat;
 import android.support.v4.widget.CircularScroller;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.view.Display;
 import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.view.WindowManager;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 public abstract class ACircularRecyclerView extends ARecyclerView {
     private static final String TAG = "ACircularRecyclerView";
@@ -47,6 +66,82 @@ public abstract class ACircularRecyclerView extends ARecyclerView {
         return null;
     }
 
+    /**
+     * Create {@code count} view holders of {@code viewType} on a background thread and put them
+     * into the {@link RecycledViewPool}, so the first layout and fling don't have to inflate them
+     * on the UI thread. The adapter's {@link Adapter#onCreateViewHolder(ViewGroup, int)} must be
+     * safe to call from a background thread, like with {@code AsyncLayoutInflater}.
+     *
+     * @param viewType the view type to create
+     * @param count    number of view holders to create, {@link CircularLayoutManager#getSlotCount()}
+     *                 is a good start.
+     */
+    public void prewarmRecycledViewPool(final int viewType, final int count) {
+        final Adapter adapter = getAdapter();
+        if (adapter == null) {
+            Log.e(TAG, "Cannot prewarm the pool without an adapter set.");
+            return;
+        }
+        if (getLayoutManager() == null) {
+            Log.e(TAG, "Cannot prewarm the pool without a LayoutManager set.");
+            return;
+        }
+
+        getPrewarmExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final ViewHolder[] holders = new ViewHolder[count];
+                try {
+                    for (int i = 0; i < count; ++i)
+                        holders[i] = adapter.createViewHolder(ACircularRecyclerView.this, viewType);
+                } catch (RuntimeException ex) {
+                    Log.w(TAG, "prewarmRecycledViewPool(): problem creating view holders in background", ex);
+                    return;
+                }
+
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // the adapter has been swapped, the holders are of no use anymore.
+                        if (getAdapter() != adapter)
+                            return;
+
+                        final RecycledViewPool pool = getRecycledViewPool();
+                        final CircularLayoutManager layout = getCircularLayoutManager();
+                        int capacity = pool.getRecycledViewCount(viewType) + count;
+                        if (layout != null)
+                            capacity = Math.max(capacity, layout.getSlotCount());
+                        // only ever grow the pool, it may be shared with views which need more.
+                        if (capacity > CircularLayoutManager.getMaxRecycledViews(pool, viewType))
+                            pool.setMaxRecycledViews(viewType, capacity);
+                        for (final ViewHolder holder : holders)
+                            pool.putRecycledView(holder);
+                    }
+                });
+            }
+        });
+    }
+
+    private static final int SMOOTH_SCROLL_DURATION = 250;
+
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+    private static Executor sPrewarmExecutor;
+
+    private static synchronized Executor getPrewarmExecutor() {
+        if (sPrewarmExecutor == null) {
+            sPrewarmExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "CircularRecyclerView-prewarm");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        }
+        return sPrewarmExecutor;
+    }
+
     public void scrollBy(float dTheta) {
         final CircularLayoutManager layout = getCircularLayoutManager();
         if (layout == null) {
@@ -57,12 +152,657 @@ public abstract class ACircularRecyclerView extends ARecyclerView {
             return;
         }
         if (layout.canScrollCircularly())
-            layout.scrollCircularlyBy(dTheta, mRecycler, mState);
+            dispatchCircularScrolled(layout.scrollCircularlyBy(dTheta, mRecycler, mState));
+    }
+
+    /**
+     * animate a scroll by {@code dTheta} with the angular flinger, clamped to the scroll range.
+     */
+    public void smoothScrollBy(float dTheta) {
+        smoothScrollBy(dTheta, SMOOTH_SCROLL_DURATION);
+    }
+
+    /**
+     * @param dTheta   the angle to scroll
+     * @param duration the duration in milliseconds
+     */
+    public void smoothScrollBy(float dTheta, int duration) {
+        final CircularLayoutManager layout = getCircularLayoutManager();
+        if (layout == null) {
+            Log.e(TAG, "Cannot scroll without a CircularLayoutManager set. Call setLayoutManager with a non-null argument.");
+            return;
+        }
+        if (isLayoutFrozen() || !layout.canScrollCircularly())
+            return;
+
+        final float offset = layout.getCircularOffset();
+        dTheta = Math.max(0, Math.min(offset + dTheta, layout.getMaxCircularOffset())) - offset;
+        if (dTheta != 0 && mViewFlinger instanceof AngularViewFlinger)
+            ((AngularViewFlinger) mViewFlinger).smoothScrollBy(dTheta, duration);
+    }
+
+    private CircularScrollCoordinator mScrollCoordinator;
+
+    void setScrollCoordinator(CircularScrollCoordinator coordinator) {
+        mScrollCoordinator = coordinator;
+    }
+
+    /**
+     * called whenever the layout actually scrolled, by touch, fling or {@link #scrollBy(float)}.
+     *
+     * @param dTheta the consumed angle
+     */
+    void dispatchCircularScrolled(float dTheta) {
+        if (dTheta == 0)
+            return;
+        if (mScrollCoordinator != null)
+            mScrollCoordinator.onScrolled(this, dTheta);
+
+        mPendingScrollTheta += dTheta;
+        mScrollDispatchPending = true;
+    }
+
+    private final ArrayList<OnCircularScrollListener> mCircularScrollListeners = new ArrayList<>();
+    private float mPendingScrollTheta;
+    // sub-pixel remainder of the arc length reported to the plain OnScrollListeners
+    private float mScrollArcRemainder;
+    private boolean mScrollDispatchPending;
+    private final ViewTreeObserver.OnPreDrawListener mScrollDispatcher = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            if (mScrollDispatchPending)
+                dispatchPendingCircularScroll();
+            return true;
+        }
+    };
+
+    public void addOnCircularScrollListener(OnCircularScrollListener listener) {
+        mCircularScrollListeners.add(listener);
+    }
+
+    public void removeOnCircularScrollListener(OnCircularScrollListener listener) {
+        mCircularScrollListeners.remove(listener);
+    }
+
+    public void clearOnCircularScrollListeners() {
+        mCircularScrollListeners.clear();
+    }
+
+    /**
+     * dispatch everything scrolled since the last frame at once, right before drawing.
+     */
+    private void dispatchPendingCircularScroll() {
+        final float dTheta = mPendingScrollTheta;
+        mPendingScrollTheta = 0;
+        mScrollDispatchPending = false;
+
+        final CircularLayoutManager layout = getCircularLayoutManager();
+        final float offset = layout != null ? layout.getCircularOffset() : 0;
+        final int scrollState = getScrollState();
+        for (int i = mCircularScrollListeners.size() - 1; i >= 0; --i)
+            mCircularScrollListeners.get(i).onCircularScrolled(this, dTheta, offset, scrollState);
+
+        // plain OnScrollListeners get the arc length as a vertical scroll
+        if (dTheta != 0 && layout != null) {
+            final float arc = dTheta * layout.getLayoutRadius() + mScrollArcRemainder;
+            final int pixels = (int) arc;
+            mScrollArcRemainder = arc - pixels;
+            if (pixels != 0)
+                dispatchOnScrolled(0, pixels);
+        }
+    }
+
+    public interface OnCircularScrollListener {
+        /**
+         * Called at most once per frame, right before drawing, with everything scrolled since the
+         * last call, or when the scroll state changed.
+         *
+         * @param view        the view which scrolled
+         * @param dTheta      the angle scrolled since the last call, may be 0 if only the scroll
+         *                    state changed
+         * @param offset      the absolute scroll offset, see {@link CircularLayoutManager#getCircularOffset()}
+         * @param scrollState the current scroll state
+         */
+        void onCircularScrolled(ACircularRecyclerView view, float dTheta, float offset, int scrollState);
+    }
+
+    private float mAutoRotateSpeed;
+    // flipped at either end of the list, the speed set by the app is left alone.
+    private int mAutoRotateDirection = 1;
+    private boolean mAutoRotateEnabled;
+    private int mAutoRotateFrameInterval = 1;
+    private long mAutoRotateRampNanos = 500000000L;
+    private boolean mAutoRotateTouching;
+    private boolean mAutoRotating;
+    private long mAutoRotateLastFrameNanos;
+    private long mAutoRotateRampStartNanos;
+    private final FrameCallbackCompat mAutoRotateCallback = new FrameCallbackCompat(this) {
+        @Override
+        void doFrame(long frameTimeNanos) {
+            stepAutoRotate(frameTimeNanos);
+        }
+    };
+
+    /**
+     * Keep spinning the dial slowly while it's idle, like a turntable. The rotation pauses while
+     * the view is detached, hidden, touched or scrolling, and ramps back up to speed when it
+     * resumes. When an end of the list is reached, the direction is reversed. Nothing is
+     * scheduled while the layout can't scroll.
+     *
+     * @param enabled true to enable, false (default) to disable.
+     */
+    public void setAutoRotateEnabled(boolean enabled) {
+        mAutoRotateEnabled = enabled;
+        updateAutoRotate();
+    }
+
+    public boolean isAutoRotateEnabled() {
+        return mAutoRotateEnabled;
+    }
+
+    /**
+     * @param speed the angular speed in radians per second, positive to scroll towards the end of
+     *              the list. resets a direction reversed at an end.
+     */
+    public void setAutoRotateSpeed(float speed) {
+        mAutoRotateSpeed = speed;
+        mAutoRotateDirection = 1;
+        updateAutoRotate();
+    }
+
+    public float getAutoRotateSpeed() {
+        return mAutoRotateSpeed;
+    }
+
+    /**
+     * @param interval only rotate every {@code interval} frames, to save power on very slow
+     *                 speeds. the frames in between aren't woken up at all. 1 (default) rotates
+     *                 every frame.
+     */
+    public void setAutoRotateFrameInterval(int interval) {
+        if (interval < 1)
+            throw new IllegalArgumentException("interval < 1");
+        mAutoRotateFrameInterval = interval;
+    }
+
+    public int getAutoRotateFrameInterval() {
+        return mAutoRotateFrameInterval;
+    }
+
+    /**
+     * @param rampNanos the time to ease back to full speed after resuming
+     */
+    public void setAutoRotateRampDuration(long rampNanos) {
+        mAutoRotateRampNanos = rampNanos;
+    }
+
+    public long getAutoRotateRampDuration() {
+        return mAutoRotateRampNanos;
+    }
+
+    private boolean shouldAutoRotate() {
+        final CircularLayoutManager layout = getCircularLayoutManager();
+        return mAutoRotateEnabled && mAutoRotateSpeed != 0 &&
+                !mAutoRotateTouching && getScrollState() == SCROLL_STATE_IDLE &&
+                layout != null && layout.canScrollCircularly() &&
+                ViewCompat.isAttachedToWindow(this) && isShown() &&
+                getWindowVisibility() == VISIBLE;
+    }
+
+    private void updateAutoRotate() {
+        final boolean rotate = shouldAutoRotate();
+        if (rotate == mAutoRotating)
+            return;
+
+        mAutoRotating = rotate;
+        if (rotate) {
+            // the first frame only records the time
+            mAutoRotateLastFrameNanos = -1;
+            mAutoRotateCallback.postFrame();
+        } else {
+            mAutoRotateCallback.removeFrame();
+        }
+    }
+
+    private void stepAutoRotate(long frameTimeNanos) {
+        if (!mAutoRotating)
+            return;
+        // the item count or the layout manager changed, onLayout() starts it again.
+        if (!shouldAutoRotate()) {
+            updateAutoRotate();
+            return;
+        }
+
+        if (mAutoRotateLastFrameNanos == -1) {
+            mAutoRotateLastFrameNanos = frameTimeNanos;
+            mAutoRotateRampStartNanos = frameTimeNanos;
+            postAutoRotateStep();
+            return;
+        }
+
+        final float dt = (frameTimeNanos - mAutoRotateLastFrameNanos) / 1e9f;
+        mAutoRotateLastFrameNanos = frameTimeNanos;
+
+        float ramp = mAutoRotateRampNanos <= 0 ? 1 : (float) (frameTimeNanos - mAutoRotateRampStartNanos) / mAutoRotateRampNanos;
+        if (ramp > 1)
+            ramp = 1;
+        // smoothstep
+        ramp = ramp * ramp * (3 - 2 * ramp);
+
+        if (!isLayoutFrozen()) {
+            final CircularLayoutManager layout = getCircularLayoutManager();
+            final float dTheta = mAutoRotateSpeed * mAutoRotateDirection * ramp * dt;
+            final float consumed = layout.scrollCircularlyBy(dTheta, mRecycler, mState);
+            dispatchCircularScrolled(consumed);
+            // the consumed angle is rarely bit-identical to the requested one, check the ends.
+            final float offset = layout.getCircularOffset();
+            if ((dTheta > 0 && offset >= layout.getMaxCircularOffset()) || (dTheta < 0 && offset <= 0)) {
+                // hit an end, turn around.
+                mAutoRotateDirection = -mAutoRotateDirection;
+                mAutoRotateRampStartNanos = frameTimeNanos;
+            }
+        }
+        postAutoRotateStep();
+    }
+
+    private void postAutoRotateStep() {
+        if (mAutoRotateFrameInterval > 1)
+            mAutoRotateCallback.postFrameDelayed((mAutoRotateFrameInterval - 1) * getFrameIntervalNanos() / 1000000L);
+        else
+            mAutoRotateCallback.postFrame();
+    }
+
+    /**
+     * @return the duration of a frame on the default display, in nanoseconds.
+     */
+    private long getFrameIntervalNanos() {
+        final Display display = ((WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay();
+        final float refreshRate = display.getRefreshRate() > 0 ? display.getRefreshRate() : 60.0f;
+        return (long) (1e9f / refreshRate);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+        // the item count may have made the dial scrollable again.
+        updateAutoRotate();
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        final int action = ev.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN) {
+            mAutoRotateTouching = true;
+            updateAutoRotate();
+        }
+        // the pinch sees every event, even the ones a child or an item touch listener handles.
+        if (mScaleDetector != null)
+            mScaleDetector.onTouchEvent(ev);
+        final boolean handled = super.dispatchTouchEvent(ev);
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            mAutoRotateTouching = false;
+            updateAutoRotate();
+        }
+        return handled;
+    }
+
+    private ScaleGestureDetector mScaleDetector;
+    private ValueAnimator mDensitySnapAnimator;
+    private float mMinDisplayDensity = 3;
+    private float mMaxDisplayDensity = 24;
+    private float mPinchStartDensity;
+    private float mPinchScale;
+
+    /**
+     * Pinch to change how many items the arc shows, see
+     * {@link CircularLayoutManager#setDisplayDensity(float)}. The density follows the fingers
+     * continuously and snaps to the nearest integer when the pinch ends.
+     *
+     * @param enabled true to enable, false (default) to disable.
+     */
+    public void setPinchToZoomEnabled(boolean enabled) {
+        if (enabled == (mScaleDetector != null))
+            return;
+
+        if (enabled) {
+            mScaleDetector = new ScaleGestureDetector(getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+                @Override
+                public boolean onScaleBegin(ScaleGestureDetector detector) {
+                    final CircularLayoutManager layout = getCircularLayoutManager();
+                    if (layout == null)
+                        return false;
+
+                    cancelDensitySnap();
+                    stopScroll();
+                    mPinchStartDensity = layout.getDisplayDensity();
+                    mPinchScale = 1.0f;
+                    return true;
+                }
+
+                @Override
+                public boolean onScale(ScaleGestureDetector detector) {
+                    final CircularLayoutManager layout = getCircularLayoutManager();
+                    if (layout == null)
+                        return false;
+
+                    // spreading the fingers zooms in, less items on the arc.
+                    mPinchScale *= detector.getScaleFactor();
+                    layout.setDisplayDensity(Math.max(mMinDisplayDensity, Math.min(mPinchStartDensity / mPinchScale, mMaxDisplayDensity)));
+                    return true;
+                }
+
+                @Override
+                public void onScaleEnd(ScaleGestureDetector detector) {
+                    snapDisplayDensity();
+                }
+            });
+        } else {
+            mScaleDetector = null;
+        }
+    }
+
+    public boolean isPinchToZoomEnabled() {
+        return mScaleDetector != null;
+    }
+
+    /**
+     * @param min the smallest density the pinch can reach, should be >= 2
+     * @param max the largest density the pinch can reach
+     */
+    public void setPinchDensityRange(float min, float max) {
+        if (min > max)
+            throw new IllegalArgumentException("min > max");
+        mMinDisplayDensity = min;
+        mMaxDisplayDensity = max;
+    }
+
+    private void snapDisplayDensity() {
+        final CircularLayoutManager layout = getCircularLayoutManager();
+        if (layout == null)
+            return;
+
+        final float density = layout.getDisplayDensity();
+        final float target = Math.max((float) Math.ceil(mMinDisplayDensity), Math.min(Math.round(density), (float) Math.floor(mMaxDisplayDensity)));
+        if (target == density)
+            return;
+
+        cancelDensitySnap();
+        mDensitySnapAnimator = ValueAnimator.ofFloat(density, target);
+        mDensitySnapAnimator.setDuration(SMOOTH_SCROLL_DURATION);
+        mDensitySnapAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                final CircularLayoutManager layout = getCircularLayoutManager();
+                if (layout != null)
+                    layout.applyDisplayDensity((Float) animation.getAnimatedValue());
+            }
+        });
+        mDensitySnapAnimator.start();
+    }
+
+    void cancelDensitySnap() {
+        if (mDensitySnapAnimator != null) {
+            mDensitySnapAnimator.cancel();
+            mDensitySnapAnimator = null;
+        }
+    }
+
+    @Override
+    public void setLayoutManager(LayoutManager layout) {
+        cancelDensitySnap();
+        super.setLayoutManager(layout);
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent e) {
+        if (mScaleDetector != null && mScaleDetector.isInProgress())
+            return true;
+        return super.onInterceptTouchEvent(e);
+    }
+
+    @Override
+    public void onScrollStateChanged(int state) {
+        super.onScrollStateChanged(state);
+        updateAutoRotate();
+
+        if (!mCircularScrollListeners.isEmpty()) {
+            mScrollDispatchPending = true;
+            ViewCompat.postInvalidateOnAnimation(this);
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        getViewTreeObserver().addOnPreDrawListener(mScrollDispatcher);
+        updateAutoRotate();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        getViewTreeObserver().removeOnPreDrawListener(mScrollDispatcher);
+        cancelDensitySnap();
+        updateAutoRotate();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateAutoRotate();
+    }
+
+    @Override
+    protected void onVisibilityChanged(@NonNull View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateAutoRotate();
+    }
+
+    private static final long ROTARY_FLING_IDLE_NANOS = 50000000L;
+
+    private float mRotaryScrollFactor;
+    private boolean mRotaryFlingEnabled;
+    private float mPendingRotaryTheta;
+    // true from the first tick until the encoder stops, the view is dragging meanwhile
+    private boolean mRotaryBurst;
+    private float mRotaryBurstTheta;
+    private long mRotaryBurstStartNanos;
+    private long mRotaryLastTickNanos;
+    private final FrameCallbackCompat mRotaryCallback = new FrameCallbackCompat(this) {
+        @Override
+        void doFrame(long frameTimeNanos) {
+            stepRotary(frameTimeNanos);
+        }
+    };
+
+    /**
+     * @param radiansPerTick the angle to scroll for each rotary encoder / mouse wheel tick, 0
+     *                       (default) to derive it from the platform scroll factor and the layout
+     *                       radius.
+     */
+    public void setRotaryScrollFactor(float radiansPerTick) {
+        mRotaryScrollFactor = radiansPerTick;
+    }
+
+    public float getRotaryScrollFactor() {
+        return mRotaryScrollFactor;
+    }
+
+    /**
+     * @param enabled true to turn the speed of a fast rotary encoder burst into a fling when the
+     *                encoder stops, false (default) to stop right away.
+     */
+    public void setRotaryFlingEnabled(boolean enabled) {
+        mRotaryFlingEnabled = enabled;
+    }
+
+    public boolean isRotaryFlingEnabled() {
+        return mRotaryFlingEnabled;
+    }
+
+    @Override
+    public boolean onGenericMotionEvent(MotionEvent event) {
+        final CircularLayoutManager layout = getCircularLayoutManager();
+        if (layout == null || isLayoutFrozen() || !layout.canScrollCircularly() ||
+                event.getAction() != MotionEvent.ACTION_SCROLL)
+            return super.onGenericMotionEvent(event);
+
+        final float ticks;
+        if ((event.getSource() & InputDeviceCompat.SOURCE_ROTARY_ENCODER) == InputDeviceCompat.SOURCE_ROTARY_ENCODER)
+            ticks = -event.getAxisValue(MotionEventCompat.AXIS_SCROLL);
+        else if ((event.getSource() & InputDeviceCompat.SOURCE_CLASS_POINTER) != 0)
+            ticks = event.getAxisValue(MotionEvent.AXIS_HSCROLL) - event.getAxisValue(MotionEvent.AXIS_VSCROLL);
+        else
+            return super.onGenericMotionEvent(event);
+        if (ticks == 0)
+            return super.onGenericMotionEvent(event);
+
+        float factor = mRotaryScrollFactor;
+        if (factor == 0)
+            factor = ViewConfigurationCompat.getScaledVerticalScrollFactor(ViewConfiguration.get(getContext()), getContext()) / layout.getLayoutRadius();
+
+        final long eventTimeNanos = event.getEventTime() * 1000000L;
+        // a finger dragging at the same time keeps the state, the knob only adds to it.
+        if (getScrollState() != SCROLL_STATE_DRAGGING) {
+            // the knob takes over a running fling, and drags like a finger until it stops
+            if (getScrollState() == SCROLL_STATE_SETTLING)
+                stopScroll();
+            mRotaryBurst = true;
+            mRotaryBurstTheta = 0;
+            mRotaryBurstStartNanos = eventTimeNanos;
+            setScrollState(SCROLL_STATE_DRAGGING);
+        }
+        mRotaryLastTickNanos = eventTimeNanos;
+        mPendingRotaryTheta += ticks * factor;
+
+        // coalesce all the ticks of this frame into one scroll
+        mRotaryCallback.postFrame();
+        return true;
+    }
+
+    private void stepRotary(long frameTimeNanos) {
+        if (mPendingRotaryTheta != 0) {
+            final float dTheta = mPendingRotaryTheta;
+            mPendingRotaryTheta = 0;
+            mRotaryBurstTheta += dTheta;
+
+            final CircularLayoutManager layout = getCircularLayoutManager();
+            if (layout != null && !isLayoutFrozen())
+                dispatchCircularScrolled(layout.scrollCircularlyBy(dTheta, mRecycler, mState));
+
+            mRotaryCallback.postFrame();
+            return;
+        }
+
+        if (!mRotaryBurst)
+            return;
+        // a touch or stopScroll() took over, the state isn't ours anymore
+        if (getScrollState() != SCROLL_STATE_DRAGGING) {
+            mRotaryBurst = false;
+            mRotaryBurstTheta = 0;
+            return;
+        }
+
+        // wait for the encoder to stop before deciding whether to fling
+        if (frameTimeNanos - mRotaryLastTickNanos < ROTARY_FLING_IDLE_NANOS) {
+            mRotaryCallback.postFrame();
+            return;
+        }
+
+        mRotaryBurst = false;
+        final long duration = mRotaryLastTickNanos - mRotaryBurstStartNanos;
+        final float burstTheta = mRotaryBurstTheta;
+        mRotaryBurstTheta = 0;
+        final CircularLayoutManager layout = getCircularLayoutManager();
+        if (mRotaryFlingEnabled && duration > 0 && layout != null)
+            fling(burstTheta / (duration / 1e9f) * layout.getLayoutRadius());
+        // the fling moves on to settling, otherwise the burst is over.
+        if (getScrollState() == SCROLL_STATE_DRAGGING)
+            setScrollState(SCROLL_STATE_IDLE);
     }
 
     private float mLastTouchTheta;
     private MotionEvent mVtev;
 
+    private AngularTouchPredictor mTouchPredictor;
+    private long mTouchPredictionLookaheadNanos;
+    // the last angle fed to the predictor, and the unwrapped scroll angle since ACTION_DOWN
+    private float mPredictorTheta;
+    private float mTouchScrollTheta;
+    // the scroll angle already applied to the layout since ACTION_DOWN
+    private float mPredictedScrollTheta;
+
+    /**
+     * Scroll to where the finger is predicted to be when the frame is displayed, instead of where
+     * it was when the touch event was generated. Reduces the lag between the finger and the dial
+     * on large radii.
+     *
+     * @param enabled true to enable, false (default) to disable.
+     */
+    public void setTouchPredictionEnabled(boolean enabled) {
+        if (enabled == (mTouchPredictor != null))
+            return;
+
+        if (enabled) {
+            mTouchPredictor = new AngularTouchPredictor();
+            // the frame being produced is displayed about one vsync later.
+            if (mTouchPredictionLookaheadNanos == 0)
+                mTouchPredictionLookaheadNanos = getFrameIntervalNanos();
+        } else {
+            mTouchPredictor = null;
+        }
+    }
+
+    public boolean isTouchPredictionEnabled() {
+        return mTouchPredictor != null;
+    }
+
+    /**
+     * @return the predictor, to tune it or read its error metrics, or {@code null} if the
+     * prediction is disabled.
+     */
+    @Nullable
+    public AngularTouchPredictor getTouchPredictor() {
+        return mTouchPredictor;
+    }
+
+    /**
+     * @param lookaheadNanos how far ahead of the touch event time to predict
+     */
+    public void setTouchPredictionLookahead(long lookaheadNanos) {
+        mTouchPredictionLookaheadNanos = lookaheadNanos;
+    }
+
+    public long getTouchPredictionLookahead() {
+        return mTouchPredictionLookaheadNanos;
+    }
+
+    private void addTouchPredictorSample(long eventTimeMillis, float theta) {
+        mTouchScrollTheta += wrapTheta(mPredictorTheta - theta);
+        mPredictorTheta = theta;
+        mTouchPredictor.addSample(eventTimeMillis * 1000000L, mTouchScrollTheta);
+    }
+
+    /**
+     * @return the angle of ({@code x}, {@code y}) around the layout center, compensated for the
+     * rotation currently applied by the layout and mapped back through the fisheye warp, so the
+     * content under the finger follows it.
+     */
+    private static float computeTouchTheta(CircularLayoutManager layout, float x, float y) {
+        return layout.unwarpAngle((float) Math.atan2(-y + layout.getLayoutCenterY(), x - layout.getLayoutCenterX()) + layout.getRenderRotation());
+    }
+
+    /**
+     * @return {@code dTheta} wrapped into [-PI, PI]
+     */
+    private static float wrapTheta(float dTheta) {
+        if (dTheta > Math.PI)
+            dTheta -= Math.PI * 2;
+        if (dTheta < -Math.PI)
+            dTheta += Math.PI * 2;
+        return dTheta;
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         if (isLayoutFrozen())
@@ -73,13 +813,16 @@ public abstract class ACircularRecyclerView extends ARecyclerView {
             return true;
         }
 
+        // no scrolling while pinching
+        if (mScaleDetector != null && mScaleDetector.isInProgress()) {
+            _cancelTouch();
+            return true;
+        }
+
         final CircularLayoutManager layout = getCircularLayoutManager();
         if (layout == null || !layout.canScrollCircularly())
             return super.onTouchEvent(event);
 
-        final float layoutCenterX = layout.getLayoutCenterX();
-        final float layoutCenterY = layout.getLayoutCenterY();
-
         VelocityTracker tracker = _getVelocityTracker();
         if (tracker == null)
             _setVelocityTracker(tracker = VelocityTracker.obtain());
@@ -88,22 +831,40 @@ public abstract class ACircularRecyclerView extends ARecyclerView {
         switch (action) {
             case MotionEvent.ACTION_DOWN: {
                 _setScrollPointerId(event.getPointerId(0));
-                mLastTouchTheta = (float) Math.atan2(-event.getY() + layoutCenterY, event.getX() - layoutCenterX);
+                mLastTouchTheta = computeTouchTheta(layout, event.getX(), event.getY());
+                if (mTouchPredictor != null) {
+                    mTouchPredictor.reset();
+                    mPredictorTheta = mLastTouchTheta;
+                    mTouchScrollTheta = 0;
+                    mPredictedScrollTheta = 0;
+                }
+                if (mScrollCoordinator != null)
+                    mScrollCoordinator.onTouchDown(this);
                 mVtev = MotionEvent.obtain(event);
                 mVtev.setLocation(0, 0);
                 tracker.addMovement(mVtev);
                 break;
             }
             case MotionEvent.ACTION_MOVE: {
-                float theta = (float) Math.atan2(-event.getY() + layoutCenterY, event.getX() - layoutCenterX);
-                float dTheta = mLastTouchTheta - theta;
-                if (dTheta > Math.PI)
-                    dTheta -= Math.PI * 2;
-                if (dTheta < -Math.PI)
-                    dTheta += Math.PI * 2;
-
-                if (layout.scrollCircularlyBy(dTheta, mRecycler, mState) != 0)
+                final float theta = computeTouchTheta(layout, event.getX(), event.getY());
+                final float dTheta = wrapTheta(mLastTouchTheta - theta);
+
+                float scrollTheta = dTheta;
+                if (mTouchPredictor != null) {
+                    final int historySize = event.getHistorySize();
+                    for (int h = 0; h < historySize; ++h)
+                        addTouchPredictorSample(event.getHistoricalEventTime(h), computeTouchTheta(layout, event.getHistoricalX(h), event.getHistoricalY(h)));
+                    addTouchPredictorSample(event.getEventTime(), theta);
+
+                    final float predicted = mTouchPredictor.predict(event.getEventTime() * 1000000L + mTouchPredictionLookaheadNanos);
+                    scrollTheta = predicted - mPredictedScrollTheta;
+                    mPredictedScrollTheta = predicted;
+                }
+
+                final float consumed = layout.scrollCircularlyBy(scrollTheta, mRecycler, mState);
+                if (consumed != 0)
                     getParent().requestDisallowInterceptTouchEvent(true);
+                dispatchCircularScrolled(consumed);
 
                 // forge linear motion into angular motion
                 final MotionEvent vtev = MotionEvent.obtain(event);
@@ -121,8 +882,14 @@ public abstract class ACircularRecyclerView extends ARecyclerView {
                 break;
             }
             case MotionEvent.ACTION_UP: {
+                if (mTouchPredictor != null) {
+                    // settle where the finger actually is, not where it was predicted to be.
+                    dispatchCircularScrolled(layout.scrollCircularlyBy(mTouchScrollTheta - mPredictedScrollTheta, mRecycler, mState));
+                    mPredictedScrollTheta = mTouchScrollTheta;
+                }
                 tracker.computeCurrentVelocity(1000, getMaxFlingVelocity());
-                final float yvel = -VelocityTrackerCompat.getYVelocity(tracker, _getScrollPointerId());
+                // the forged motion accumulates the scrolled arc length, so it already has the sign of the scroll.
+                final float yvel = VelocityTrackerCompat.getYVelocity(tracker, _getScrollPointerId());
                 if (!(yvel != 0 && fling(yvel)))
                     setScrollState(SCROLL_STATE_IDLE);
                 _resetTouch();
@@ -144,6 +911,14 @@ public abstract class ACircularRecyclerView extends ARecyclerView {
         return true;
     }
 
+    /**
+     * fling the circular offset, like a touch or rotary fling does.
+     *
+     * @param velocityAngular the velocity along the arc in pixels per second, positive towards
+     *                        {@link CircularLayoutManager#getMaxCircularOffset()} (clockwise),
+     *                        negative towards 0.
+     * @return true if the fling was started or handled by the {@link OnFlingListener}.
+     */
     public boolean fling(float velocityAngular) {
         final CircularLayoutManager layout = getCircularLayoutManager();
         if (layout == null) {
@@ -179,7 +954,9 @@ public abstract class ACircularRecyclerView extends ARecyclerView {
          * Note that this method will only be called if the associated {@link LayoutManager}
          * supports scrolling and the fling is not handled by nested scrolls first.
          *
-         * @param velocityAngular the fling velocity counterclockwise
+         * @param velocityAngular the fling velocity in radians per second, with the sign of the
+         *                        scroll: positive increases the circular offset (clockwise),
+         *                        negative decreases it.
          * @return true if the fling was handled, false otherwise.
          */
         abstract boolean onFling(float velocityAngular);
@@ -188,6 +965,12 @@ public abstract class ACircularRecyclerView extends ARecyclerView {
     private class AngularViewFlinger extends ViewFlinger {
         private final CircularScroller mCircularScroller = new CircularScroller(getContext(), sQuinticInterpolator);
         private float mLastFlingTheta = Float.NaN;
+        private final FrameCallbackCompat mFrameCallback = new FrameCallbackCompat(ACircularRecyclerView.this) {
+            @Override
+            void doFrame(long frameTimeNanos) {
+                runAngular(frameTimeNanos);
+            }
+        };
 
         @Override
         public void run() {
@@ -196,11 +979,22 @@ public abstract class ACircularRecyclerView extends ARecyclerView {
                 return;
             }
 
+            // angular animations are stepped from the choreographer frame time instead.
+            mFrameCallback.postFrame();
+        }
+
+        /**
+         * step the angular animation to the given frame time, so the position matches the vsync
+         * timestamp of the frame being produced regardless of the refresh rate.
+         */
+        private void runAngular(long frameTimeNanos) {
+            if (Float.isNaN(mLastFlingTheta))
+                return;
+
             if (mLayout == null || !(mLayout instanceof CircularLayoutManager)) {
                 stop();
                 return; // no layout, cannot scroll.
             }
-            Log.d(TAG, "AngularViewFlinger.run()");
 
             final CircularLayoutManager layout = (CircularLayoutManager) mLayout;
             _disableRunOnAnimationRequests();
@@ -209,21 +1003,23 @@ public abstract class ACircularRecyclerView extends ARecyclerView {
             // cause unexpected behaviors
             final CircularScroller scroller = mCircularScroller;
             final SmoothScroller smoothScroller = mLayout.mSmoothScroller;
-            if (scroller.computeScrollOffset()) {
-                final float theta = scroller.getCurrTheta();
-                float dTheta = theta - mLastFlingTheta;
-                float thetaResult = 0;
-                mLastFlingTheta = theta;
-                float overscrollTheta = 0;
+            if (scroller.computeScrollOffset(frameTimeNanos)) {
+                final float radius = layout.getLayoutRadius();
+                mLastFlingTheta = scroller.getCurrTheta();
+
+                // the scroller knows the real bounds, anything past them is overscroll which is
+                // rendered by the layout without asking it to scroll out of its range.
+                final float position = mLastFlingTheta / radius;
+                final float clamped = Math.max(0, Math.min(position, layout.getMaxCircularOffset()));
 
                 if (mAdapter != null) {
                     eatRequestLayout();
                     onEnterLayoutOrScroll();
                     TraceCompat.beginSection(TRACE_SCROLL_TAG);
-                    if (dTheta != 0) {
-                        thetaResult = layout.scrollCircularlyBy(dTheta / layout.getLayoutRadius(), mRecycler, mState) * layout.getLayoutRadius();
-                        overscrollTheta = dTheta - thetaResult;
-                    }
+                    final float dTheta = clamped - layout.getCircularOffset();
+                    if (dTheta != 0)
+                        dispatchCircularScrolled(layout.scrollCircularlyBy(dTheta, mRecycler, mState));
+                    layout.setOverscrollTheta(position - clamped);
                     TraceCompat.endSection();
                     repositionShadowingViews();
 
@@ -249,39 +1045,32 @@ public abstract class ACircularRecyclerView extends ARecyclerView {
 //                if (getOverScrollMode() != View.OVER_SCROLL_NEVER) {
 //                    considerReleasingGlowsOnScroll(dx, dy);
 //                }
-                if (overscrollTheta != 0) {
-                    final float vel = scroller.getCurrVelocity();
-                    float velTheta = 0;
-                    if (overscrollTheta != theta) {
-                        velTheta = overscrollTheta < 0 ? -vel : overscrollTheta > 0 ? vel : 0;
-                    }
 //                    if (getOverScrollMode() != View.OVER_SCROLL_NEVER) {
 //                        absorbGlows(velX, velY);
 //                    }
-                    if (velTheta != 0 || overscrollTheta == theta || scroller.getFinalTheta() == 0)
-                        scroller.abortAnimation();
-                }
-//                if (thetaResult != 0)
-//                    dispatchOnScrolled(thetaResult);
+                // dispatchCircularScrolled() above reports to the scroll listeners once per frame.
 
                 if (!awakenScrollBars()) {
                     invalidate();
                 }
 
-                final boolean fullyConsumed = dTheta != 0 && layout.canScrollCircularly() && thetaResult == dTheta;
-
-                if (scroller.isFinished() || !fullyConsumed) {
+                if (scroller.isFinished() || !layout.canScrollCircularly()) {
+                    layout.setOverscrollTheta(0);
                     mLastFlingTheta = Float.NaN;
                     setScrollState(SCROLL_STATE_IDLE); // setting state to idle will stop this.
 //                    if (ALLOW_THREAD_GAP_WORK) {
 //                        mPrefetchRegistry.clearPrefetchPositions();
 //                    }
                 } else {
-                    postOnAnimation();
+                    mFrameCallback.postFrame();
 //                    if (mGapWorker != null) {
 //                        mGapWorker.postFromTraversal(RecyclerView.this, dx, dy);
 //                    }
                 }
+            } else {
+                layout.setOverscrollTheta(0);
+                mLastFlingTheta = Float.NaN;
+                setScrollState(SCROLL_STATE_IDLE);
             }
 //            // call this after the onAnimation is complete not to have inconsistent callbacks etc.
 //            if (smoothScroller != null) {
@@ -326,17 +1115,40 @@ public abstract class ACircularRecyclerView extends ARecyclerView {
 
         @Override
         public void stop() {
+            if (!Float.isNaN(mLastFlingTheta) && mLayout instanceof CircularLayoutManager)
+                ((CircularLayoutManager) mLayout).setOverscrollTheta(0);
             mLastFlingTheta = Float.NaN;
+            mFrameCallback.removeFrame();
             super.stop();
         }
 
         void fling(float velocityAngular) {
             if (mLayout instanceof CircularLayoutManager) {
                 Log.d(TAG, "fling!!! velocity = " + velocityAngular);
+                if (mScrollCoordinator != null)
+                    mScrollCoordinator.onTouchDown(ACircularRecyclerView.this);
+                final CircularLayoutManager layout = (CircularLayoutManager) mLayout;
+                final float radius = layout.getLayoutRadius();
+                // the scroller works on the arc length, so the fling physics stay in pixels.
+                final float start = layout.getCircularOffset() * radius;
+                final float max = layout.getMaxCircularOffset() * radius;
+                final float over = getOverScrollMode() == OVER_SCROLL_NEVER ? 0 : layout.getItemTheta() / 2 * radius;
+                setScrollState(SCROLL_STATE_SETTLING);
+                mLastFlingTheta = start;
+                mCircularScroller.fling(start, velocityAngular * radius, 0, max, over);
+                mFrameCallback.postFrame();
+            }
+        }
+
+        void smoothScrollBy(float dTheta, int duration) {
+            if (mLayout instanceof CircularLayoutManager) {
+                final CircularLayoutManager layout = (CircularLayoutManager) mLayout;
+                final float radius = layout.getLayoutRadius();
+                final float start = layout.getCircularOffset() * radius;
                 setScrollState(SCROLL_STATE_SETTLING);
-                mLastFlingTheta = 0;
-                mCircularScroller.fling(0, velocityAngular * ((CircularLayoutManager) mLayout).getLayoutRadius(), Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY);
-                postOnAnimation();
+                mLastFlingTheta = start;
+                mCircularScroller.startScroll(start, dTheta * radius, duration);
+                mFrameCallback.postFrame();
             }
         }
     }
@@ -0,0 +1,192 @@
+package android.support.v7.widget;
+
+/**
+ * Extrapolates the angular touch stream to the time the frame being produced will be displayed,
+ * using a constant-acceleration fit over the last three samples.
+ * <p>
+ * The prediction is damped when the finger changes direction or decelerates towards a stop, and
+ * is never allowed to get further than {@link #setMaxPrediction(float)} away from the last
+ * sample. The error of every prediction against the actual touch position at its target time is
+ * collected, together with the error of not predicting at all, so the benefit can be measured.
+ */
+public class AngularTouchPredictor {
+    private static final int NUM_SAMPLES = 3;
+
+    private final long[] mTimes = new long[NUM_SAMPLES];
+    private final float[] mThetas = new float[NUM_SAMPLES];
+    private int mCount;
+
+    private float mDamping = 1.0f;
+    private float mMaxPrediction = (float) (Math.PI / 8);
+
+    // the last prediction which hasn't been compared against the actual touch yet
+    private long mPendingTime = -1;
+    private float mPendingPrediction;
+    private float mPendingBaseline;
+
+    private int mErrorCount;
+    private double mErrorSum;
+    private double mErrorSquareSum;
+    private float mMaxError;
+    private double mBaselineErrorSum;
+
+    /**
+     * @param damping 0 for no prediction at all, 1 (default) for the full extrapolation.
+     */
+    public void setDamping(float damping) {
+        if (damping < 0 || damping > 1)
+            throw new IllegalArgumentException("damping not in [0, 1]");
+        mDamping = damping;
+    }
+
+    public float getDamping() {
+        return mDamping;
+    }
+
+    /**
+     * @param maxTheta the maximum angle the prediction may be ahead of the last sample
+     */
+    public void setMaxPrediction(float maxTheta) {
+        mMaxPrediction = Math.abs(maxTheta);
+    }
+
+    public float getMaxPrediction() {
+        return mMaxPrediction;
+    }
+
+    /**
+     * forget the samples, call this when a new gesture starts. the metrics are kept.
+     */
+    public void reset() {
+        mCount = 0;
+        mPendingTime = -1;
+    }
+
+    /**
+     * @param timeNanos the time of the sample
+     * @param theta     the unwrapped (continuous) angle of the touch
+     */
+    public void addSample(long timeNanos, float theta) {
+        if (mCount > 0 && timeNanos <= mTimes[mCount - 1]) {
+            // same timestamp, just take the newer position
+            mThetas[mCount - 1] = theta;
+            return;
+        }
+
+        if (mPendingTime != -1 && mCount > 0 && timeNanos >= mPendingTime) {
+            final long lastTime = mTimes[mCount - 1];
+            final float lastTheta = mThetas[mCount - 1];
+            final float actual = lastTheta + (theta - lastTheta) * (mPendingTime - lastTime) / (timeNanos - lastTime);
+            final float error = Math.abs(mPendingPrediction - actual);
+            ++mErrorCount;
+            mErrorSum += error;
+            mErrorSquareSum += error * error;
+            mMaxError = Math.max(mMaxError, error);
+            mBaselineErrorSum += Math.abs(mPendingBaseline - actual);
+            mPendingTime = -1;
+        }
+
+        if (mCount == NUM_SAMPLES) {
+            System.arraycopy(mTimes, 1, mTimes, 0, NUM_SAMPLES - 1);
+            System.arraycopy(mThetas, 1, mThetas, 0, NUM_SAMPLES - 1);
+            --mCount;
+        }
+        mTimes[mCount] = timeNanos;
+        mThetas[mCount] = theta;
+        ++mCount;
+    }
+
+    /**
+     * @param targetTimeNanos the time the predicted angle will be displayed
+     * @return the predicted angle, or the last sample if there's not enough data.
+     */
+    public float predict(long targetTimeNanos) {
+        if (mCount == 0)
+            return 0;
+
+        final float last = mThetas[mCount - 1];
+        float prediction = last;
+        if (mCount >= 2 && mDamping > 0) {
+            final float dt = (targetTimeNanos - mTimes[mCount - 1]) / 1e9f;
+            final float dt1 = (mTimes[mCount - 1] - mTimes[mCount - 2]) / 1e9f;
+            final float v1 = (last - mThetas[mCount - 2]) / dt1;
+
+            float velocity = v1;
+            float acceleration = 0;
+            if (mCount == NUM_SAMPLES) {
+                final float dt0 = (mTimes[1] - mTimes[0]) / 1e9f;
+                final float v0 = (mThetas[1] - mThetas[0]) / dt0;
+                if (v0 * v1 < 0) {
+                    // changing direction, the fit is meaningless, be conservative.
+                    velocity = v1 * 0.5f;
+                } else {
+                    acceleration = (v1 - v0) / ((dt0 + dt1) / 2);
+                    velocity = v1 + acceleration * dt1 / 2;
+                }
+            }
+
+            float extrapolation;
+            if (acceleration != 0 && velocity * (velocity + acceleration * dt) < 0) {
+                // decelerating to a stop before the target time, don't overshoot the stop.
+                extrapolation = -velocity * velocity / (2 * acceleration);
+            } else {
+                extrapolation = velocity * dt + acceleration * dt * dt / 2;
+            }
+            extrapolation *= mDamping;
+            if (extrapolation > mMaxPrediction)
+                extrapolation = mMaxPrediction;
+            else if (extrapolation < -mMaxPrediction)
+                extrapolation = -mMaxPrediction;
+            prediction = last + extrapolation;
+        }
+
+        mPendingTime = targetTimeNanos;
+        mPendingPrediction = prediction;
+        mPendingBaseline = last;
+        return prediction;
+    }
+
+    /**
+     * @return number of predictions compared against the actual touch position
+     */
+    public int getErrorCount() {
+        return mErrorCount;
+    }
+
+    /**
+     * @return the mean absolute error of the predictions, in radians
+     */
+    public float getMeanAbsoluteError() {
+        return mErrorCount == 0 ? 0 : (float) (mErrorSum / mErrorCount);
+    }
+
+    /**
+     * @return the root mean square error of the predictions, in radians
+     */
+    public float getRootMeanSquareError() {
+        return mErrorCount == 0 ? 0 : (float) Math.sqrt(mErrorSquareSum / mErrorCount);
+    }
+
+    /**
+     * @return the largest absolute error of the predictions, in radians
+     */
+    public float getMaxAbsoluteError() {
+        return mMaxError;
+    }
+
+    /**
+     * @return the mean absolute error without prediction (using the last sample), in radians.
+     * compare against {@link #getMeanAbsoluteError()} to tell if the prediction helps.
+     */
+    public float getMeanAbsoluteBaselineError() {
+        return mErrorCount == 0 ? 0 : (float) (mBaselineErrorSum / mErrorCount);
+    }
+
+    public void resetMetrics() {
+        mErrorCount = 0;
+        mErrorSum = 0;
+        mErrorSquareSum = 0;
+        mMaxError = 0;
+        mBaselineErrorSum = 0;
+    }
+}
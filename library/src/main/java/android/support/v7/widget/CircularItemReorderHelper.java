@@ -0,0 +1,299 @@
+package android.support.v7.widget;
+
+import android.graphics.Canvas;
+import android.support.v4.view.GestureDetectorCompat;
+import android.support.v4.view.ViewCompat;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Reorders the items of an {@link ACircularRecyclerView} by dragging them around the arc.
+ * <p>
+ * The dragged item only follows the finger by its translation. Every time it crosses into the
+ * next slot the adapter is told once with {@link RecyclerView.Adapter#notifyItemMoved(int, int)},
+ * the neighbours are moved by the {@link RecyclerView.ItemAnimator} and nothing is bound
+ * again. Dragging near the ends of the sweep area scrolls the dial by one slot at a time with
+ * {@link ACircularRecyclerView#smoothScrollBy(float, int)}.
+ */
+public class CircularItemReorderHelper extends RecyclerView.ItemDecoration implements RecyclerView.OnItemTouchListener {
+    private static final int AUTO_SCROLL_DURATION = 300;
+    private static final int DROP_DURATION = 150;
+
+    public abstract static class Callback {
+        /**
+         * @return true if the item can be dragged, by default all of them.
+         */
+        public boolean canDrag(ACircularRecyclerView view, RecyclerView.ViewHolder holder) {
+            return true;
+        }
+
+        /**
+         * move the item in the data set from {@code from} to {@code to}, they are always next to
+         * each other. don't notify the adapter, the helper does.
+         *
+         * @return true if the item was moved, false to refuse.
+         */
+        public abstract boolean onMove(ACircularRecyclerView view, int from, int to);
+
+        public void onDragStarted(ACircularRecyclerView view, RecyclerView.ViewHolder holder) {
+        }
+
+        public void onDragFinished(ACircularRecyclerView view, RecyclerView.ViewHolder holder) {
+        }
+    }
+
+    private final Callback mCallback;
+    private ACircularRecyclerView mRecyclerView;
+    private GestureDetectorCompat mGestureDetector;
+    private boolean mLongPressDragEnabled = true;
+    private float mDragElevation;
+
+    private RecyclerView.ViewHolder mDragging;
+    private int mActivePointerId = MotionEvent.INVALID_POINTER_ID;
+    private float mTouchX;
+    private float mTouchY;
+    // where the item was grabbed, relative to its left / top
+    private float mGrabX;
+    private float mGrabY;
+    private boolean mAutoScrollPosted;
+
+    private final Runnable mAutoScroller = new Runnable() {
+        @Override
+        public void run() {
+            mAutoScrollPosted = false;
+            if (mDragging == null || mRecyclerView == null)
+                return;
+
+            if (autoScrollIfNeeded()) {
+                moveIfNeeded();
+                mRecyclerView.invalidate();
+                postAutoScroll();
+            }
+        }
+    };
+
+    public CircularItemReorderHelper(Callback callback) {
+        mCallback = callback;
+    }
+
+    public void attachToRecyclerView(ACircularRecyclerView view) {
+        if (mRecyclerView == view)
+            return;
+        if (mRecyclerView != null) {
+            if (mDragging != null)
+                endDrag();
+            mRecyclerView.removeItemDecoration(this);
+            mRecyclerView.removeOnItemTouchListener(this);
+        }
+
+        mRecyclerView = view;
+        if (view != null) {
+            view.addItemDecoration(this);
+            view.addOnItemTouchListener(this);
+            mDragElevation = 8 * view.getResources().getDisplayMetrics().density;
+            mGestureDetector = new GestureDetectorCompat(view.getContext(), new GestureDetector.SimpleOnGestureListener() {
+                @Override
+                public void onLongPress(MotionEvent e) {
+                    if (!mLongPressDragEnabled || mDragging != null || mRecyclerView == null)
+                        return;
+                    final View child = mRecyclerView.findChildViewUnder(e.getX(), e.getY());
+                    if (child != null)
+                        startDrag(mRecyclerView.getChildViewHolder(child));
+                }
+            });
+        }
+    }
+
+    /**
+     * @param enabled true (default) to start dragging an item on long press, false to only
+     *                drag with {@link #startDrag(RecyclerView.ViewHolder)}.
+     */
+    public void setLongPressDragEnabled(boolean enabled) {
+        mLongPressDragEnabled = enabled;
+    }
+
+    public boolean isLongPressDragEnabled() {
+        return mLongPressDragEnabled;
+    }
+
+    /**
+     * start dragging {@code holder}, e.g. from a drag handle. the finger has to be down on the
+     * {@link ACircularRecyclerView}.
+     */
+    public void startDrag(RecyclerView.ViewHolder holder) {
+        if (mRecyclerView == null || mDragging != null || holder.itemView.getParent() != mRecyclerView)
+            return;
+        if (mActivePointerId == MotionEvent.INVALID_POINTER_ID || !mCallback.canDrag(mRecyclerView, holder))
+            return;
+        final CircularLayoutManager layout = mRecyclerView.getCircularLayoutManager();
+        if (layout == null)
+            return;
+
+        mRecyclerView.stopScroll();
+        mDragging = holder;
+        mGrabX = mTouchX - holder.itemView.getLeft();
+        mGrabY = mTouchY - holder.itemView.getTop();
+        holder.setIsRecyclable(false);
+        holder.itemView.animate().cancel();
+        ViewCompat.setTranslationZ(holder.itemView, mDragElevation);
+        layout.setHoldOffsetOnItemMoves(true);
+        if (mRecyclerView.getParent() != null)
+            mRecyclerView.getParent().requestDisallowInterceptTouchEvent(true);
+        mCallback.onDragStarted(mRecyclerView, holder);
+        mRecyclerView.invalidate();
+    }
+
+    private void endDrag() {
+        final RecyclerView.ViewHolder holder = mDragging;
+        mDragging = null;
+        mActivePointerId = MotionEvent.INVALID_POINTER_ID;
+        mRecyclerView.removeCallbacks(mAutoScroller);
+        mAutoScrollPosted = false;
+
+        holder.itemView.animate().translationX(0).translationY(0).setDuration(DROP_DURATION).start();
+        ViewCompat.setTranslationZ(holder.itemView, 0);
+        holder.setIsRecyclable(true);
+        final CircularLayoutManager layout = mRecyclerView.getCircularLayoutManager();
+        if (layout != null)
+            layout.setHoldOffsetOnItemMoves(false);
+        mCallback.onDragFinished(mRecyclerView, holder);
+    }
+
+    @Override
+    public void onDraw(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        if (mDragging == null)
+            return;
+
+        // the dragged item is laid out at its current slot, only the translation follows the finger.
+        final View view = mDragging.itemView;
+        view.setTranslationX(mTouchX - mGrabX - view.getLeft());
+        view.setTranslationY(mTouchY - mGrabY - view.getTop());
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+        if (mGestureDetector != null)
+            mGestureDetector.onTouchEvent(e);
+
+        switch (e.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mActivePointerId = e.getPointerId(0);
+                updateTouch(e);
+                break;
+            case MotionEvent.ACTION_MOVE:
+                updateTouch(e);
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                if (mDragging != null)
+                    endDrag();
+                mActivePointerId = MotionEvent.INVALID_POINTER_ID;
+                break;
+        }
+        return mDragging != null;
+    }
+
+    @Override
+    public void onTouchEvent(RecyclerView rv, MotionEvent e) {
+        if (mDragging == null)
+            return;
+
+        switch (e.getActionMasked()) {
+            case MotionEvent.ACTION_MOVE:
+                updateTouch(e);
+                moveIfNeeded();
+                postAutoScroll();
+                rv.invalidate();
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                if (e.getPointerId(e.getActionIndex()) == mActivePointerId)
+                    endDrag();
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                endDrag();
+                break;
+        }
+    }
+
+    @Override
+    public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        if (disallowIntercept && mDragging != null)
+            endDrag();
+    }
+
+    private void updateTouch(MotionEvent e) {
+        final int index = e.findPointerIndex(mActivePointerId);
+        if (index < 0)
+            return;
+        mTouchX = e.getX(index);
+        mTouchY = e.getY(index);
+    }
+
+    /**
+     * move the dragged item one slot at a time towards the slot under its center.
+     */
+    private void moveIfNeeded() {
+        final CircularLayoutManager layout = mRecyclerView.getCircularLayoutManager();
+        final RecyclerView.Adapter adapter = mRecyclerView.getAdapter();
+        if (layout == null || adapter == null)
+            return;
+
+        final View view = mDragging.itemView;
+        final int target = layout.findPositionUnder(mTouchX - mGrabX + view.getWidth() / 2.0f, mTouchY - mGrabY + view.getHeight() / 2.0f);
+        int from = mDragging.getAdapterPosition();
+        if (target == RecyclerView.NO_POSITION || from == RecyclerView.NO_POSITION)
+            return;
+
+        while (from != target) {
+            final int to = from + (target > from ? 1 : -1);
+            if (!mCallback.onMove(mRecyclerView, from, to))
+                return;
+            adapter.notifyItemMoved(from, to);
+            from = to;
+        }
+    }
+
+    /**
+     * @return true if the dragged item is near either end of the sweep area and the dial can
+     * still scroll that way.
+     */
+    private boolean autoScrollIfNeeded() {
+        final CircularLayoutManager layout = mRecyclerView.getCircularLayoutManager();
+        if (layout == null || !layout.canScrollCircularly())
+            return false;
+
+        final View view = mDragging.itemView;
+        final float x = mTouchX - mGrabX + view.getWidth() / 2.0f;
+        final float y = mTouchY - mGrabY + view.getHeight() / 2.0f;
+        final float start = layout.getStartAngle();
+        final float sweep = layout.getSweepAngle();
+        final float edge = layout.getItemTheta() / 2;
+
+        // wrap the angle into [center - PI, center + PI)
+        final float center = start + sweep / 2;
+        float theta = (float) Math.atan2(layout.getLayoutCenterY() - y, x - layout.getLayoutCenterX()) + layout.getRenderRotation();
+        theta = (float) (theta - Math.PI * 2 * Math.floor((theta - center + Math.PI) / (Math.PI * 2)));
+
+        final float offset = layout.getCircularOffset();
+        final int direction;
+        if (theta < start + edge && offset > 0)
+            direction = -1;
+        else if (theta > start + sweep - edge && offset < layout.getMaxCircularOffset())
+            direction = 1;
+        else
+            return false;
+
+        if (mRecyclerView.getScrollState() != RecyclerView.SCROLL_STATE_SETTLING)
+            mRecyclerView.smoothScrollBy(direction * layout.getItemTheta(), AUTO_SCROLL_DURATION);
+        return true;
+    }
+
+    private void postAutoScroll() {
+        if (!mAutoScrollPosted) {
+            mAutoScrollPosted = true;
+            ViewCompat.postOnAnimation(mRecyclerView, mAutoScroller);
+        }
+    }
+}
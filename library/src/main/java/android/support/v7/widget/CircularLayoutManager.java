@@ -3,17 +3,27 @@ package android.support.v7.widget;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.PointF;
+import android.support.v4.util.LongSparseArray;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import tw.idv.palatis.crv.R;
 
 public class CircularLayoutManager extends RecyclerView.LayoutManager implements
         RecyclerView.SmoothScroller.ScrollVectorProvider {
     private static final String TAG = "CircularLayoutManager";
 
+    private static final double TWO_PI = Math.PI * 2;
+    private static final double POSITION_EPSILON = 1e-4;
+    // RecyclerView.RecycledViewPool.DEFAULT_MAX_SCRAP, private
+    private static final int DEFAULT_MAX_SCRAP = 5;
+
     /**
      * the range for all children in radius, that's
      * - the full range of {@code mThetaSweep - mThetaStart}, if {@code getItemCount() < mNumDisplayChildren}
@@ -33,8 +43,96 @@ public class CircularLayoutManager extends RecyclerView.LayoutManager implements
     private float mLayoutCenterY = 0;
     private float mLayoutRadius;
 
+    /**
+     * the parameters used by the last layout pass, to tell if the children can just be moved.
+     */
+    private float mLaidOutCenterX = Float.NaN;
+    private float mLaidOutCenterY = Float.NaN;
+    private float mLaidOutRadius = Float.NaN;
+    private float mLaidOutOffset = Float.NaN;
+    private float mLaidOutItemTheta = Float.NaN;
+    private float mLaidOutThetaStart = Float.NaN;
+    private float mLaidOutThetaSweep = Float.NaN;
+
     private int mNumDisplayChildren;
+    /**
+     * the number of items across the sweep area, may be fractional while zooming.
+     */
+    private float mDisplayDensity;
     private int mNumSkipChildren;
+    private int mOffArcCacheSize;
+    private int mViewCacheSize = RecyclerView.Recycler.DEFAULT_CACHE_SIZE;
+
+    private ItemTransformer mItemTransformer;
+    private boolean mHardwareLayersWhileScrolling = true;
+    private int mScrollState = RecyclerView.SCROLL_STATE_IDLE;
+
+    private boolean mRigidRotationEnabled;
+    private boolean mRigidBaseValid;
+    private float mRenderRotation;
+    private float mRigidRotation;
+    private float mOverscrollTheta;
+    private float mRigidLayoutOffset;
+    private int mRigidFirst;
+    private int mRigidLast;
+    private int mRigidFirstCompletely;
+    private int mRigidLastCompletely;
+
+    /**
+     * how far ahead in time (seconds) the load priority looks when penalizing positions behind
+     * the scroll direction.
+     */
+    private static final float LOAD_PRIORITY_HORIZON = 0.5f;
+
+    private OnLoadPriorityListener mOnLoadPriorityListener;
+    private int[] mLoadPriorities = new int[0];
+    private int mLoadPriorityCount;
+    private int mScrollDirection = 1;
+    private float mScrollVelocity;
+    private long mLastScrollTimeNanos;
+
+    private static final int ITEM_OP_ADD = 1;
+    private static final int ITEM_OP_REMOVE = 2;
+    private static final int ITEM_OP_MOVE = 3;
+
+    /**
+     * item operations dispatched since the last layout, {type, positionStart, itemCount} or
+     * {{@link #ITEM_OP_MOVE}, from, to}.
+     */
+    private final List<int[]> mPendingItemOps = new ArrayList<>();
+
+    /**
+     * moved items don't shift the offset, so reordering by drag doesn't scroll the dial.
+     */
+    private boolean mHoldOffsetOnItemMoves;
+    private boolean mReleaseHoldOnItemMoves;
+    private boolean mStableIdRetentionEnabled;
+
+    private float mSelectionAngle;
+    // false while the selection angle follows the center of the sweep area
+    private boolean mSelectionAngleSet;
+    private int mSelectedPosition = RecyclerView.NO_POSITION;
+    private int mDispatchedSelection = RecyclerView.NO_POSITION;
+    private OnSelectionChangedListener mOnSelectionChangedListener;
+    private boolean mSelectionDispatchPosted;
+    private final Runnable mSelectionDispatcher = new Runnable() {
+        @Override
+        public void run() {
+            mSelectionDispatchPosted = false;
+            dispatchSelectionChanged();
+        }
+    };
+
+    private FisheyeWarp mWarp;
+    private float mWarpFocalAngle;
+    private float mWarpDistortion;
+    private final LongSparseArray<RecyclerView.ViewHolder> mUnmatchedHolders = new LongSparseArray<>();
+
+    private float mLayoutAngleEpsilon = 0.0f;
+    private OnLayoutAnglesListener mOnLayoutAnglesListener;
+    private int[] mLayoutPositions = new int[0];
+    private float[] mLayoutThetas = new float[0];
+    private float[] mLayoutOffsets = new float[0];
 
     public CircularLayoutManager(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
         final TypedArray a = context.getTheme().obtainStyledAttributes(attrs, R.styleable.CircularLayoutManager, defStyleAttr, defStyleRes);
@@ -43,38 +141,40 @@ public class CircularLayoutManager extends RecyclerView.LayoutManager implements
             mThetaSweep = (float) Math.toRadians(a.getFloat(R.styleable.CircularLayoutManager_clm_sweepAngle, 360f));
             mNumSkipChildren = a.getInteger(R.styleable.CircularLayoutManager_clm_numSkipChildren, 0);
             mNumDisplayChildren = a.getInteger(R.styleable.CircularLayoutManager_clm_numDisplayChildren, 8);
+            mDisplayDensity = mNumDisplayChildren;
+            mOffArcCacheSize = a.getInteger(R.styleable.CircularLayoutManager_clm_offArcCacheSize, 0);
         } finally {
             a.recycle();
         }
+        mSelectionAngle = mThetaStart + mThetaSweep / 2;
 
         updateRanges();
     }
 
-    @Override
-    public void onMeasure(RecyclerView.Recycler recycler, RecyclerView.State state, int widthSpec, int heightSpec) {
-        super.onMeasure(recycler, state, widthSpec, heightSpec);
-
-        final int widthSize = View.MeasureSpec.getSize(widthSpec);
-        final int heightSize = View.MeasureSpec.getSize(heightSpec);
-
-        final float cx = widthSize / 2;
-        final float cy = heightSize / 2;
+    /**
+     * update the layout center and radius from the size of the {@link RecyclerView}.
+     *
+     * @return true if the geometry is different from the one used for the last layout.
+     */
+    private boolean updateLayoutGeometry(int width, int height) {
+        final float cx = width / 2;
+        final float cy = height / 2;
         final float r = Math.min(cx, cy) - Math.max(Math.max(getPaddingLeft(), getPaddingRight()), Math.max(getPaddingTop(), getPaddingBottom()));
 
-        if (cx != mLayoutCenterX || cy != mLayoutCenterY || r != mLayoutRadius) {
-            mLayoutCenterX = cx;
-            mLayoutCenterY = cy;
-            mLayoutRadius = r;
-            requestLayout();
-        }
+        mLayoutCenterX = cx;
+        mLayoutCenterY = cy;
+        mLayoutRadius = r;
+        return cx != mLaidOutCenterX || cy != mLaidOutCenterY || r != mLaidOutRadius;
     }
 
     public void setNumDisplayChildren(int children) {
         if (children < 2)
             Log.d(TAG, "setNumDisplayChildren(): children < 2, you'll probably get strange behavior.");
 
-        if (children != mNumDisplayChildren) {
+        cancelDensitySnap();
+        if (children != mNumDisplayChildren || children != mDisplayDensity) {
             mNumDisplayChildren = children;
+            mDisplayDensity = children;
             updateRanges();
         }
     }
@@ -83,6 +183,56 @@ public class CircularLayoutManager extends RecyclerView.LayoutManager implements
         return mNumDisplayChildren;
     }
 
+    /**
+     * Change how many items the sweep area shows, continuously. The item at the center of the
+     * sweep area keeps its angle, the attached children are laid-out again from the scrap
+     * without binding, only the children entering the sweep area are bound and only the ones
+     * leaving it are recycled.
+     *
+     * @param density the number of items across the sweep area, may be fractional, e.g. while
+     *                pinching. {@link #getNumDisplayChildren()} is rounded up from it.
+     */
+    public void setDisplayDensity(float density) {
+        cancelDensitySnap();
+        applyDisplayDensity(density);
+    }
+
+    /**
+     * {@link #setDisplayDensity(float)} without cancelling the snap animation of the pinch, which
+     * drives it.
+     */
+    void applyDisplayDensity(float density) {
+        if (density < 2)
+            Log.d(TAG, "setDisplayDensity(): density < 2, you'll probably get strange behavior.");
+        if (density == mDisplayDensity)
+            return;
+
+        // the fractional index at the center of the sweep area stays put.
+        final float absSweep = Math.abs(mThetaSweep);
+        final float oldItemTheta = Math.abs(mItemTheta);
+        final float center = oldItemTheta == 0 ? 0 : (absSweep / 2 + mCircularOffset) / oldItemTheta;
+
+        mDisplayDensity = density;
+        mNumDisplayChildren = (int) Math.ceil(density);
+        updateRanges();
+
+        final float offset = center * Math.abs(mItemTheta) - absSweep / 2;
+        mCircularOffset = Math.max(0, Math.min(offset, getMaxCircularOffset()));
+        requestLayout();
+    }
+
+    public float getDisplayDensity() {
+        return mDisplayDensity;
+    }
+
+    /**
+     * the app changing the density wins over the pinch snapping to the nearest integer.
+     */
+    private void cancelDensitySnap() {
+        if (mRecyclerView instanceof ACircularRecyclerView)
+            ((ACircularRecyclerView) mRecyclerView).cancelDensitySnap();
+    }
+
     public void setNumSkipChildren(int children) {
         if (children != mNumSkipChildren) {
             mNumSkipChildren = children;
@@ -94,6 +244,24 @@ public class CircularLayoutManager extends RecyclerView.LayoutManager implements
         return mNumSkipChildren;
     }
 
+    /**
+     * @param children number of children on each side of the sweep area to keep bound in the
+     *                 view cache without attaching them, 0 to disable.
+     */
+    public void setOffArcCacheSize(int children) {
+        if (children < 0)
+            throw new IllegalArgumentException("children < 0");
+
+        if (children != mOffArcCacheSize) {
+            mOffArcCacheSize = children;
+            requestLayout();
+        }
+    }
+
+    public int getOffArcCacheSize() {
+        return mOffArcCacheSize;
+    }
+
     /**
      * @param thetaStart the starting angle to layout the first child
      * @param thetaSweep the sweeping angle of the arc
@@ -102,7 +270,12 @@ public class CircularLayoutManager extends RecyclerView.LayoutManager implements
         if (mThetaStart != thetaStart || mThetaSweep != thetaSweep) {
             mThetaStart = thetaStart;
             mThetaSweep = thetaSweep;
+            updateWarp();
             updateRanges();
+            if (!mSelectionAngleSet) {
+                mSelectionAngle = mThetaStart + mThetaSweep / 2;
+                updateSelection();
+            }
         }
     }
 
@@ -115,21 +288,235 @@ public class CircularLayoutManager extends RecyclerView.LayoutManager implements
     @Override
     public void onItemsChanged(RecyclerView recyclerView) {
         super.onItemsChanged(recyclerView);
+        // the adapter helper dropped the pending operations, so do we.
+        mPendingItemOps.clear();
+        if (mStableIdRetentionEnabled)
+            retainStableIdChildren(recyclerView);
         updateRanges();
     }
 
+    /**
+     * When enabled and the adapter has stable ids, {@link RecyclerView.Adapter#notifyDataSetChanged()}
+     * moves the attached children to the new positions of their ids instead of binding all of
+     * them again, and the item at the center of the sweep keeps its angle. Only the children
+     * whose id is gone are recycled, and only new ids are bound.
+     * <p>
+     * An item with the same id is assumed to be unchanged, dispatch
+     * {@link RecyclerView.Adapter#notifyItemChanged(int)} after the data set change for the
+     * items whose content changed.
+     *
+     * @param enabled true to enable, false (default) for the usual full rebind.
+     */
+    public void setStableIdRetentionEnabled(boolean enabled) {
+        mStableIdRetentionEnabled = enabled;
+    }
+
+    public boolean isStableIdRetentionEnabled() {
+        return mStableIdRetentionEnabled;
+    }
+
+    private void retainStableIdChildren(RecyclerView recyclerView) {
+        final RecyclerView.Adapter adapter = recyclerView.getAdapter();
+        if (adapter == null || !adapter.hasStableIds())
+            return;
+
+        final int itemCount = adapter.getItemCount();
+        final int anchor = getAnchorPosition();
+        int anchorShift = 0;
+
+        // most ids don't move, check their old positions first.
+        final LongSparseArray<RecyclerView.ViewHolder> unmatched = mUnmatchedHolders;
+        for (int i = getChildCount() - 1; i >= 0; --i) {
+            final RecyclerView.ViewHolder holder = recyclerView.getChildViewHolder(getChildAt(i));
+            if (holder == null || holder.shouldIgnore() || holder.isRemoved() || holder.getItemId() == RecyclerView.NO_ID)
+                continue;
+
+            final int position = holder.mPosition;
+            if (position >= 0 && position < itemCount && adapter.getItemId(position) == holder.getItemId() &&
+                    adapter.getItemViewType(position) == holder.getItemViewType())
+                retainHolder(holder, position);
+            else
+                unmatched.put(holder.getItemId(), holder);
+        }
+
+        for (int position = 0; position < itemCount && unmatched.size() != 0; ++position) {
+            final long id = adapter.getItemId(position);
+            final RecyclerView.ViewHolder holder = unmatched.get(id);
+            if (holder == null)
+                continue;
+
+            unmatched.remove(id);
+            if (adapter.getItemViewType(position) != holder.getItemViewType())
+                continue;
+            if (holder.mPosition == anchor)
+                anchorShift = position - anchor;
+            retainHolder(holder, position);
+        }
+        // whatever is left stays invalid and gets recycled by the layout.
+        unmatched.clear();
+
+        if (anchorShift != 0)
+            mCircularOffset += anchorShift * Math.abs(mItemTheta);
+    }
+
+    private static void retainHolder(RecyclerView.ViewHolder holder, int position) {
+        holder.mPosition = position;
+        holder.mOldPosition = RecyclerView.NO_POSITION;
+        holder.mPreLayoutPosition = RecyclerView.NO_POSITION;
+        holder.clearPayload();
+        holder.setFlags(0, RecyclerView.ViewHolder.FLAG_UPDATE | RecyclerView.ViewHolder.FLAG_INVALID |
+                RecyclerView.ViewHolder.FLAG_ADAPTER_POSITION_UNKNOWN | RecyclerView.ViewHolder.FLAG_ADAPTER_FULLUPDATE);
+    }
+
     @Override
     public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
         super.onItemsAdded(recyclerView, positionStart, itemCount);
-        updateRanges();
+        mPendingItemOps.add(new int[]{ITEM_OP_ADD, positionStart, itemCount});
     }
 
     @Override
     public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
         super.onItemsRemoved(recyclerView, positionStart, itemCount);
+        mPendingItemOps.add(new int[]{ITEM_OP_REMOVE, positionStart, itemCount});
+    }
+
+    @Override
+    public void onItemsMoved(RecyclerView recyclerView, int from, int to, int itemCount) {
+        super.onItemsMoved(recyclerView, from, to, itemCount);
+        mPendingItemOps.add(new int[]{ITEM_OP_MOVE, from, to});
+    }
+
+    /**
+     * apply the item operations since the last layout to the scroll offset at once, so the
+     * intermediate states of a batch are never clamped.
+     */
+    private void applyPendingItemOps(int itemCount) {
+        if (mPendingItemOps.isEmpty())
+            return;
+
+        final int shift = isWindowSlide(itemCount) ? getWindowSlideShift() : getAnchorShift();
+        mPendingItemOps.clear();
+        if (shift != 0) {
+            if (Log.isLoggable(TAG, Log.DEBUG))
+                Log.d(TAG, "applyPendingItemOps(): shift = " + shift + " items");
+            mCircularOffset += shift * Math.abs(mItemTheta);
+        }
         updateRanges();
     }
 
+    /**
+     * @param hold true to keep the offset while items are moved, false to follow the anchor
+     *             again once the moves already dispatched are laid out.
+     */
+    void setHoldOffsetOnItemMoves(boolean hold) {
+        if (hold) {
+            mHoldOffsetOnItemMoves = true;
+            mReleaseHoldOnItemMoves = false;
+        } else if (mPendingItemOps.isEmpty() && (mRecyclerView == null || !mRecyclerView.hasPendingAdapterUpdates())) {
+            mHoldOffsetOnItemMoves = false;
+        } else {
+            mReleaseHoldOnItemMoves = true;
+        }
+    }
+
+    /**
+     * @return the number of items the anchor moved by, items added, removed or moved before the
+     * anchor push it around, see {@link #getAnchorPosition()}.
+     */
+    private int getAnchorShift() {
+        int anchor = getAnchorPosition();
+        final int original = anchor;
+        for (int i = 0, size = mPendingItemOps.size(); i < size; ++i) {
+            final int[] op = mPendingItemOps.get(i);
+            switch (op[0]) {
+                case ITEM_OP_ADD:
+                    if (op[1] <= anchor)
+                        anchor += op[2];
+                    break;
+                case ITEM_OP_REMOVE:
+                    if (op[1] + op[2] <= anchor)
+                        anchor -= op[2];
+                    else if (op[1] < anchor)
+                        // the anchor itself is gone, the item after the removed range takes its angle.
+                        anchor = op[1];
+                    break;
+                case ITEM_OP_MOVE:
+                    if (mHoldOffsetOnItemMoves)
+                        break;
+                    if (op[1] == anchor)
+                        anchor = op[2];
+                    else if (op[1] < anchor && op[2] >= anchor)
+                        --anchor;
+                    else if (op[1] > anchor && op[2] <= anchor)
+                        ++anchor;
+                    break;
+            }
+        }
+        return anchor - original;
+    }
+
+    /**
+     * @return true if the pending operations only remove items at one end of the adapter and
+     * add items at the other end, e.g. a "recent items" list rotating through its backing list.
+     */
+    private boolean isWindowSlide(int itemCount) {
+        int count = itemCount;
+        for (int i = mPendingItemOps.size() - 1; i >= 0; --i) {
+            final int[] op = mPendingItemOps.get(i);
+            if (op[0] == ITEM_OP_ADD)
+                count -= op[2];
+            else if (op[0] == ITEM_OP_REMOVE)
+                count += op[2];
+            else
+                return false;
+        }
+
+        boolean frontAdded = false, frontRemoved = false, backAdded = false, backRemoved = false;
+        for (int i = 0, size = mPendingItemOps.size(); i < size; ++i) {
+            final int[] op = mPendingItemOps.get(i);
+            final boolean front = op[1] == 0;
+            final boolean back = op[0] == ITEM_OP_ADD ? op[1] == count : op[1] + op[2] == count;
+            if (front == back) // in the middle, or everything
+                return false;
+
+            if (op[0] == ITEM_OP_ADD) {
+                count += op[2];
+                frontAdded |= front;
+                backAdded |= back;
+            } else {
+                count -= op[2];
+                frontRemoved |= front;
+                backRemoved |= back;
+            }
+        }
+        return !(frontAdded && frontRemoved) && !(backAdded && backRemoved);
+    }
+
+    /**
+     * a window slide shifts every surviving item by the same count, follow all of them, even if
+     * the anchor itself was dropped off the end.
+     */
+    private int getWindowSlideShift() {
+        int shift = 0;
+        for (int i = 0, size = mPendingItemOps.size(); i < size; ++i) {
+            final int[] op = mPendingItemOps.get(i);
+            if (op[1] == 0)
+                shift += op[0] == ITEM_OP_ADD ? op[2] : -op[2];
+        }
+        return shift;
+    }
+
+    /**
+     * @return the position of the item at the center of the sweep area, the item which keeps its
+     * angle when items are added, removed or moved around it.
+     */
+    private int getAnchorPosition() {
+        final float absItemTheta = Math.abs(mItemTheta);
+        if (absItemTheta == 0)
+            return 0;
+        return (int) Math.floor((Math.abs(mThetaSweep) / 2 + mCircularOffset) / absItemTheta + 0.5) - mNumSkipChildren;
+    }
+
     void updateRanges() {
         float oldTheta = mItemTheta;
 
@@ -142,8 +529,8 @@ public class CircularLayoutManager extends RecyclerView.LayoutManager implements
         if (itemCount == 0)
             return;
 
-        if (mNumDisplayChildren > 2)
-            mItemTheta /= Math.min(itemCount, mNumDisplayChildren);
+        if (mDisplayDensity > 2)
+            mItemTheta /= Math.min(itemCount, mDisplayDensity);
 
         float absItemTheta = Math.abs(mItemTheta);
         mCircularRange = absItemTheta * itemCount;
@@ -154,11 +541,33 @@ public class CircularLayoutManager extends RecyclerView.LayoutManager implements
             mCircularOffset = 0;
 
         if (oldTheta != mItemTheta) {
-            Log.d(TAG, "updateRanges(): child = " + mNumDisplayChildren + ", items = " + getItemCount() + ", theta = " + mItemTheta);
+            if (Log.isLoggable(TAG, Log.DEBUG))
+                Log.d(TAG, "updateRanges(): density = " + mDisplayDensity + ", items = " + getItemCount() + ", theta = " + mItemTheta);
             this.requestLayout();
         }
     }
 
+    /**
+     * @return the current scroll offset, in radians
+     */
+    public float getCircularOffset() {
+        return mCircularOffset;
+    }
+
+    /**
+     * @return the largest valid scroll offset, in radians
+     */
+    public float getMaxCircularOffset() {
+        return Math.max(0, mCircularRange - Math.abs(mThetaSweep));
+    }
+
+    /**
+     * @return the angle each item occupies, in radians
+     */
+    public float getItemTheta() {
+        return mItemTheta;
+    }
+
     public float getStartAngle() {
         return mThetaStart;
     }
@@ -179,8 +588,78 @@ public class CircularLayoutManager extends RecyclerView.LayoutManager implements
         return mLayoutRadius;
     }
 
+    @Override
     public RecyclerView.LayoutParams generateDefaultLayoutParams() {
-        return new RecyclerView.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        return new LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    public RecyclerView.LayoutParams generateLayoutParams(Context c, AttributeSet attrs) {
+        return new LayoutParams(c, attrs);
+    }
+
+    @Override
+    public RecyclerView.LayoutParams generateLayoutParams(ViewGroup.LayoutParams lp) {
+        if (lp instanceof ViewGroup.MarginLayoutParams)
+            return new LayoutParams((ViewGroup.MarginLayoutParams) lp);
+        return new LayoutParams(lp);
+    }
+
+    @Override
+    public boolean checkLayoutParams(RecyclerView.LayoutParams lp) {
+        return lp instanceof LayoutParams;
+    }
+
+    public static class LayoutParams extends RecyclerView.LayoutParams {
+        float mLayoutTheta = Float.NaN;
+        float mRenderTheta = Float.NaN;
+        float mLayoutOffset;
+        float mLayoutScale = 1.0f;
+
+        public LayoutParams(Context c, AttributeSet attrs) {
+            super(c, attrs);
+        }
+
+        public LayoutParams(int width, int height) {
+            super(width, height);
+        }
+
+        public LayoutParams(ViewGroup.MarginLayoutParams source) {
+            super(source);
+        }
+
+        public LayoutParams(ViewGroup.LayoutParams source) {
+            super(source);
+        }
+
+        public LayoutParams(RecyclerView.LayoutParams source) {
+            super(source);
+        }
+
+        /**
+         * @return the angle which the child was laid-out on the last layout pass, moved by the
+         * rigid rotation or the overscroll in progress if any. {@link Float#NaN} if the child
+         * hasn't been laid-out yet.
+         */
+        public float getLayoutTheta() {
+            return mRenderTheta;
+        }
+
+        /**
+         * @return the offset of the child on the last layout pass, see
+         * {@link ViewHolder#setLayoutAngle(float, float)}
+         */
+        public float getLayoutOffset() {
+            return mLayoutOffset;
+        }
+
+        /**
+         * @return the magnification of the fisheye warp on the last layout pass, 1 if disabled.
+         * see {@link CircularLayoutManager#setFisheyeWarp(float, float)}
+         */
+        public float getLayoutScale() {
+            return mLayoutScale;
+        }
     }
 
     private RecyclerView mRecyclerView;
@@ -193,80 +672,897 @@ public class CircularLayoutManager extends RecyclerView.LayoutManager implements
 
     @Override
     public void onDetachedFromWindow(RecyclerView view, RecyclerView.Recycler recycler) {
+        for (int i = getChildCount() - 1; i >= 0; --i) {
+            updateArcVisibility(view.getChildViewHolder(getChildAt(i)), 0.0f);
+            clearLayerType(getChildAt(i));
+        }
         removeAndRecycleAllViews(recycler);
+        if (mSelectionDispatchPosted) {
+            view.removeCallbacks(mSelectionDispatcher);
+            mSelectionDispatchPosted = false;
+        }
         mRecyclerView = null;
     }
 
     @Override
     public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+        applyPendingItemOps(state.getItemCount());
+        if (mReleaseHoldOnItemMoves) {
+            mHoldOffsetOnItemMoves = false;
+            mReleaseHoldOnItemMoves = false;
+        }
+        resetRigidRotation();
+        final boolean geometryChanged = updateLayoutGeometry(getWidth(), getHeight());
+        if (geometryChanged && canRepositionChildren(state)) {
+            repositionChildren();
+            return;
+        }
+
         detachAndScrapAttachedViews(recycler);
+        mLaidOutCenterX = mLayoutCenterX;
+        mLaidOutCenterY = mLayoutCenterY;
+        mLaidOutRadius = mLayoutRadius;
+        mLaidOutOffset = Float.NaN;
         if (getWidth() == 0 || getHeight() == 0)
             return;
-        if (state.getItemCount() == 0)
+        if (state.getItemCount() == 0) {
+            updateSelection();
             return;
+        }
 
         if (mThetaSweep < 0) {
             throw new UnsupportedOperationException("sweep < 0 not implemented.");
         } else if (mThetaSweep > 0) {
-            final int startIndex = (int) (mCircularOffset / mItemTheta);
-            final float compensation = mCircularOffset - startIndex * mItemTheta;
-            // lay one more child if we have to compensate
-            final int count = mNumDisplayChildren + (compensation != 0 ? 1 : 0);
-            for (int i = mNumSkipChildren; i < count; ++i) {
-                final int childIndex = startIndex + i - mNumSkipChildren;
-                if (childIndex >= state.getItemCount())
-                    break;
-
-                final float theta = mThetaStart - compensation + i * mItemTheta;
-                final float childStartAngle = theta - mItemTheta / 2.0f;
-                final float childEndAngle = theta + mItemTheta / 2.0f;
-
-                float childOffset = 1.0f;
-                if (childStartAngle < mThetaStart)
-                    childOffset = (childEndAngle - mThetaStart) / mItemTheta;
-                else if (childEndAngle > mThetaStart + mThetaSweep)
-                    childOffset = (mThetaStart + mThetaSweep - childStartAngle) / mItemTheta;
-
-                if (childOffset < 0.0f)
-                    childOffset = 0.0f;
-                else if (childOffset > 1.0f)
-                    childOffset = 1.0f;
-
-                final View child = recycler.getViewForPosition(childIndex);
-                addView(child);
-                final RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(child);
-                if (holder instanceof ViewHolder)
-                    ((ViewHolder) holder).setLayoutAngle(theta, childOffset);
-
-                child.measure(View.MeasureSpec.makeMeasureSpec(getWidth(), View.MeasureSpec.AT_MOST), View.MeasureSpec.makeMeasureSpec(getHeight(), View.MeasureSpec.AT_MOST));
-                layoutCircular(child, theta);
+            // only materialize children with non-zero visibility, the rest stays in the scrap and
+            // gets recycled after the layout pass.
+            final int first = findFirstVisibleItemPosition();
+            final int last = Math.min(findLastVisibleItemPosition(), state.getItemCount() - 1);
+            if (first != RecyclerView.NO_POSITION) {
+                if (mOnLayoutAnglesListener != null && !state.isPreLayout())
+                    ensureLayoutAnglesCapacity(last - first + 1);
+                for (int position = first; position <= last; ++position) {
+                    // the visibility comes from the evenly spaced slots, the warp is monotonic.
+                    final float slotTheta = getSlotAngle(position);
+                    final float childOffset = computeChildOffset(slotTheta);
+                    final float theta = warpAngle(slotTheta);
+                    final float scale = warpScale(slotTheta);
+
+                    final View child = recycler.getViewForPosition(position);
+                    addView(child);
+                    ensureRecycledViewPoolCapacity(getItemViewType(child), getSlotCount());
+                    final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+                    lp.mLayoutTheta = theta;
+                    lp.mRenderTheta = theta;
+                    lp.mLayoutOffset = childOffset;
+                    // before the transformer, which may compose its own scale with it.
+                    if (scale != 1.0f || lp.mLayoutScale != 1.0f) {
+                        child.setScaleX(scale);
+                        child.setScaleY(scale);
+                    }
+                    lp.mLayoutScale = scale;
+                    dispatchLayoutAngle(child, theta, childOffset);
+                    updateArcVisibility(mRecyclerView.getChildViewHolder(child), childOffset);
+                    if (mItemTransformer != null) {
+                        mItemTransformer.transformItem(child, theta, childOffset);
+                        if (mHardwareLayersWhileScrolling)
+                            updateLayerType(child);
+                    }
+                    if (mOnLayoutAnglesListener != null && !state.isPreLayout()) {
+                        final int index = position - first;
+                        mLayoutPositions[index] = position;
+                        mLayoutThetas[index] = theta;
+                        mLayoutOffsets[index] = childOffset;
+                    }
+
+                    child.measure(View.MeasureSpec.makeMeasureSpec(getWidth(), View.MeasureSpec.AT_MOST), View.MeasureSpec.makeMeasureSpec(getHeight(), View.MeasureSpec.AT_MOST));
+                    layoutCircular(child, theta);
+                }
             }
+            if (mOnLayoutAnglesListener != null && !state.isPreLayout())
+                mOnLayoutAnglesListener.onLayoutAngles(first == RecyclerView.NO_POSITION ? 0 : last - first + 1, mLayoutPositions, mLayoutThetas, mLayoutOffsets);
+
+            if (mOnLoadPriorityListener != null && !state.isPreLayout())
+                updateLoadPriority(first, last, state.getItemCount());
+
+            // whatever is left in the scrap has left the sweep area
+            final List<RecyclerView.ViewHolder> scrap = recycler.getScrapList();
+            for (int i = scrap.size() - 1; i >= 0; --i) {
+                updateArcVisibility(scrap.get(i), 0.0f);
+                // don't keep a hardware layer alive in the pool
+                clearLayerType(scrap.get(i).itemView);
+            }
+
+            if (!state.isPreLayout())
+                warmOffArcViews(recycler, state, first, last);
+
+            mLaidOutOffset = mCircularOffset;
+            mLaidOutItemTheta = mItemTheta;
+            mLaidOutThetaStart = mThetaStart;
+            mLaidOutThetaSweep = mThetaSweep;
+
+            if (!state.isPreLayout())
+                updateSelection();
+
+            if (mRigidRotationEnabled)
+                captureRigidRotationBase();
+            // the overscroll doesn't depend on the rigid rotation, it only moves the children.
+            if (mOverscrollTheta != 0)
+                applyRenderRotation();
         } else {
             throw new IllegalStateException("sweeping angle == 0!!!");
         }
     }
 
+    private void ensureLayoutAnglesCapacity(int count) {
+        if (mLayoutPositions.length < count) {
+            mLayoutPositions = new int[count];
+            mLayoutThetas = new float[count];
+            mLayoutOffsets = new float[count];
+        }
+    }
+
+    /**
+     * calls {@link ViewHolder#setLayoutAngle(float, float)} only if the angle or offset changed
+     * more than {@link #getLayoutAngleEpsilon()} since the last call, or the holder was re-bound.
+     */
+    private void dispatchLayoutAngle(View child, float theta, float offset) {
+        final RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(child);
+        if (!(holder instanceof ViewHolder))
+            return;
+
+        final ViewHolder circularHolder = (ViewHolder) holder;
+        if (Math.abs(theta - circularHolder.mLayoutTheta) <= mLayoutAngleEpsilon &&
+                Math.abs(offset - circularHolder.mLayoutOffset) <= mLayoutAngleEpsilon)
+            return;
+
+        circularHolder.mLayoutTheta = theta;
+        circularHolder.mLayoutOffset = offset;
+        circularHolder.setLayoutAngle(theta, offset);
+    }
+
+    /**
+     * @return true if the only thing that changed since the last layout pass is the layout
+     * center / radius, so the attached children are still the right ones, with the right angles.
+     */
+    private boolean canRepositionChildren(RecyclerView.State state) {
+        if (state.isPreLayout() || state.didStructureChange() || getChildCount() == 0)
+            return false;
+        if (mLaidOutOffset != mCircularOffset || mLaidOutItemTheta != mItemTheta ||
+                mLaidOutThetaStart != mThetaStart || mLaidOutThetaSweep != mThetaSweep)
+            return false;
+        for (int i = getChildCount() - 1; i >= 0; --i) {
+            final RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(getChildAt(i));
+            if (holder.needsUpdate() || holder.isInvalid() || holder.isRemoved())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * move the attached children to the new layout center / radius using the angles they were
+     * laid-out at, without re-binding or re-measuring them.
+     */
+    private void repositionChildren() {
+        for (int i = getChildCount() - 1; i >= 0; --i) {
+            final View child = getChildAt(i);
+            layoutCircular(child, ((LayoutParams) child.getLayoutParams()).mLayoutTheta);
+        }
+        mLaidOutCenterX = mLayoutCenterX;
+        mLaidOutCenterY = mLayoutCenterY;
+        mLaidOutRadius = mLayoutRadius;
+
+        if (mRigidRotationEnabled)
+            captureRigidRotationBase();
+        if (mOverscrollTheta != 0)
+            applyRenderRotation();
+    }
+
+    private void trackScrollVelocity(float dTheta) {
+        final long now = System.nanoTime();
+        final float dt = (now - mLastScrollTimeNanos) / 1e9f;
+        mLastScrollTimeNanos = now;
+        mScrollDirection = dTheta > 0 ? 1 : -1;
+        if (dt <= 0 || dt > 0.1f) {
+            // first scroll after a pause, we don't know the speed yet.
+            mScrollVelocity = 0;
+            return;
+        }
+        // smooth it a bit, touch events and frames don't arrive evenly.
+        mScrollVelocity = (mScrollVelocity + dTheta / dt) / 2;
+    }
+
+    /**
+     * @param listener the listener to receive the loading priority of the positions around the
+     *                 sweep area after every layout pass, or {@code null} to remove it.
+     * @param count    the number of positions to rank, including the visible ones.
+     */
+    public void setOnLoadPriorityListener(OnLoadPriorityListener listener, int count) {
+        mOnLoadPriorityListener = listener;
+        if (mLoadPriorities.length != count) {
+            mLoadPriorities = new int[count];
+            mLoadPriorityCount = 0;
+        }
+        if (listener != null)
+            requestLayout();
+    }
+
+    public interface OnLoadPriorityListener {
+        /**
+         * called after a layout pass whenever the ordering changed.
+         *
+         * @param positions the adapter positions, most urgent first. the array is reused across
+         *                  calls, only the first {@code count} elements are valid.
+         * @param count     number of valid positions
+         */
+        void onLoadPriorityChanged(int[] positions, int count);
+    }
+
+    /**
+     * rank the visible positions (from the leading edge), then the positions outside the sweep by
+     * the angle they have to travel to enter it. positions behind the scroll direction are
+     * penalized by the angle the dial would cover in {@link #LOAD_PRIORITY_HORIZON} seconds.
+     */
+    private void updateLoadPriority(int first, int last, int itemCount) {
+        final int[] priorities = mLoadPriorities;
+        final int capacity = priorities.length;
+        int count = 0;
+        boolean changed = false;
+
+        if (first != RecyclerView.NO_POSITION) {
+            final boolean forward = mScrollDirection >= 0;
+            final int step = forward ? 1 : -1;
+            // visible ones first, the one that just entered is the most urgent
+            for (int position = forward ? last : first; count < capacity && position >= first && position <= last; position -= step) {
+                changed |= priorities[count] != position;
+                priorities[count++] = position;
+            }
+
+            final float sweepEnd = mThetaStart + mThetaSweep;
+            final float penalty = Math.abs(mScrollVelocity) * LOAD_PRIORITY_HORIZON;
+            int ahead = forward ? last + 1 : first - 1;
+            int behind = forward ? first - 1 : last + 1;
+            while (count < capacity) {
+                final boolean hasAhead = ahead >= 0 && ahead < itemCount;
+                final boolean hasBehind = behind >= 0 && behind < itemCount;
+                if (!hasAhead && !hasBehind)
+                    break;
+
+                float aheadDistance = Float.POSITIVE_INFINITY;
+                if (hasAhead)
+                    aheadDistance = forward ?
+                            getSlotAngle(ahead) - mItemTheta / 2 - sweepEnd :
+                            mThetaStart - getSlotAngle(ahead) - mItemTheta / 2;
+                float behindDistance = Float.POSITIVE_INFINITY;
+                if (hasBehind)
+                    behindDistance = penalty + (forward ?
+                            mThetaStart - getSlotAngle(behind) - mItemTheta / 2 :
+                            getSlotAngle(behind) - mItemTheta / 2 - sweepEnd);
+
+                final int position;
+                if (aheadDistance <= behindDistance) {
+                    position = ahead;
+                    ahead += step;
+                } else {
+                    position = behind;
+                    behind -= step;
+                }
+                changed |= priorities[count] != position;
+                priorities[count++] = position;
+            }
+        }
+
+        if (changed || count != mLoadPriorityCount) {
+            mLoadPriorityCount = count;
+            mOnLoadPriorityListener.onLoadPriorityChanged(priorities, count);
+        }
+    }
+
+    /**
+     * fire the arc visibility callbacks of {@code holder} if its visibility changed.
+     */
+    private static void updateArcVisibility(RecyclerView.ViewHolder holder, float offset) {
+        if (!(holder instanceof ViewHolder))
+            return;
+
+        final ViewHolder circularHolder = (ViewHolder) holder;
+        final int visibility = offset >= 1.0f ? ViewHolder.ARC_FULLY_VISIBLE :
+                offset > 0.0f ? ViewHolder.ARC_PARTIALLY_VISIBLE :
+                        ViewHolder.ARC_HIDDEN;
+        final int oldVisibility = circularHolder.mArcVisibility;
+        if (visibility == oldVisibility)
+            return;
+
+        circularHolder.mArcVisibility = visibility;
+        if (oldVisibility == ViewHolder.ARC_HIDDEN)
+            circularHolder.onEnterArc();
+        if (visibility == ViewHolder.ARC_FULLY_VISIBLE)
+            circularHolder.onFullyVisible();
+        else if (visibility == ViewHolder.ARC_PARTIALLY_VISIBLE)
+            circularHolder.onPartiallyVisible();
+        else
+            circularHolder.onLeaveArc();
+    }
+
+    /**
+     * bind the children right outside the sweep area, and park them in the view cache without
+     * attaching them. they will be picked up without re-binding once they scroll into the sweep.
+     */
+    private void warmOffArcViews(RecyclerView.Recycler recycler, RecyclerView.State state, int first, int last) {
+        final int viewCacheSize = RecyclerView.Recycler.DEFAULT_CACHE_SIZE + mOffArcCacheSize * 2;
+        if (viewCacheSize != mViewCacheSize) {
+            mViewCacheSize = viewCacheSize;
+            recycler.setViewCacheSize(viewCacheSize);
+        }
+        if (mOffArcCacheSize == 0 || first == RecyclerView.NO_POSITION)
+            return;
+
+        final int itemCount = state.getItemCount();
+        for (int i = 1; i <= mOffArcCacheSize; ++i) {
+            if (first - i >= 0)
+                recycler.recycleView(recycler.getViewForPosition(first - i));
+            if (last + i < itemCount)
+                recycler.recycleView(recycler.getViewForPosition(last + i));
+        }
+    }
+
+    /**
+     * @return the maximum number of children attached at the same time, including the one partially
+     * visible on each edge and the skipped slots.
+     */
+    public int getSlotCount() {
+        return mNumDisplayChildren + 1 + mNumSkipChildren;
+    }
+
+    /**
+     * grow the {@link RecyclerView.RecycledViewPool} so it can hold at least {@code capacity}
+     * views of {@code viewType}, the default of 5 is too small for most dials. never shrinks it,
+     * the pool may be shared with other views which need more.
+     */
+    void ensureRecycledViewPoolCapacity(int viewType, int capacity) {
+        if (mRecyclerView == null)
+            return;
+        final RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+        if (getMaxRecycledViews(pool, viewType) < capacity)
+            pool.setMaxRecycledViews(viewType, capacity);
+    }
+
+    /**
+     * @return the current limit of {@code viewType} in the pool, which doesn't expose it.
+     */
+    static int getMaxRecycledViews(RecyclerView.RecycledViewPool pool, int viewType) {
+        final RecyclerView.RecycledViewPool.ScrapData scrapData = pool.mScrap.get(viewType);
+        return scrapData != null ? scrapData.mMaxScrap : DEFAULT_MAX_SCRAP;
+    }
+
+    /**
+     * @param theta the angle which a child is being laid-out
+     * @return the visible portion of the child, {@code 0.0f} for fully outside the sweep area and
+     * {@code 1.0f} for fully inside.
+     */
+    float computeChildOffset(float theta) {
+        final float childStartAngle = theta - mItemTheta / 2.0f;
+        final float childEndAngle = theta + mItemTheta / 2.0f;
+
+        float childOffset = 1.0f;
+        if (childStartAngle < mThetaStart)
+            childOffset = (childEndAngle - mThetaStart) / mItemTheta;
+        else if (childEndAngle > mThetaStart + mThetaSweep)
+            childOffset = (mThetaStart + mThetaSweep - childStartAngle) / mItemTheta;
+
+        if (childOffset < 0.0f)
+            childOffset = 0.0f;
+        else if (childOffset > 1.0f)
+            childOffset = 1.0f;
+        return childOffset;
+    }
+
+    /**
+     * @param position the adapter position
+     * @return the angle which the child at {@code position} is (or would be) laid-out, regardless
+     * of it being visible or not.
+     */
+    public float getAngleForPosition(int position) {
+        return warpAngle(getSlotAngle(position));
+    }
+
+    /**
+     * @return the evenly spaced angle of the slot of {@code position}, before the warp.
+     */
+    private float getSlotAngle(int position) {
+        return mThetaStart - mCircularOffset + (position + mNumSkipChildren) * mItemTheta;
+    }
+
+    /**
+     * Enable the fisheye warp: the items near {@code focalAngle} are magnified and spread apart,
+     * the items towards the ends of the sweep area are compressed. The slots are still evenly
+     * spaced for scrolling, only the laid-out angles and the scale of the children change.
+     * <p>
+     * The warp is sampled into a table whenever its parameters or the layout range change. The
+     * children are scaled by the magnification before the {@link ItemTransformer} is called. A
+     * transformer which sets the scale itself has to multiply it by
+     * {@link LayoutParams#getLayoutScale()}, like the bundled ScaleTransformer does. Rigid
+     * rotation is not used while the warp is enabled.
+     *
+     * @param focalAngle the angle of the focus, in radians, inside the sweep area
+     * @param distortion the distortion factor, the magnification at the focus is
+     *                   {@code distortion + 1}. 0 to disable the warp.
+     */
+    public void setFisheyeWarp(float focalAngle, float distortion) {
+        if (mWarpFocalAngle == focalAngle && mWarpDistortion == distortion)
+            return;
+
+        mWarpFocalAngle = focalAngle;
+        mWarpDistortion = distortion;
+        updateWarp();
+        requestLayout();
+    }
+
+    public float getFisheyeFocalAngle() {
+        return mWarpFocalAngle;
+    }
+
+    public float getFisheyeDistortion() {
+        return mWarpDistortion;
+    }
+
+    private void updateWarp() {
+        if (mWarpDistortion <= 0 || mThetaSweep == 0) {
+            mWarp = null;
+            return;
+        }
+        final float focus = (mWarpFocalAngle - mThetaStart) / mThetaSweep;
+        if (mWarp == null || mWarp.getFocus() != focus || mWarp.getDistortion() != mWarpDistortion)
+            mWarp = new FisheyeWarp(focus, mWarpDistortion);
+    }
+
+    /**
+     * @param theta the evenly spaced slot angle
+     * @return the angle the slot is laid-out at
+     */
+    private float warpAngle(float theta) {
+        if (mWarp == null)
+            return theta;
+        return mThetaStart + mWarp.warp((theta - mThetaStart) / mThetaSweep) * mThetaSweep;
+    }
+
+    private float warpScale(float theta) {
+        if (mWarp == null)
+            return 1.0f;
+        return mWarp.scale((theta - mThetaStart) / mThetaSweep);
+    }
+
+    /**
+     * @param theta a laid-out angle, e.g. from touch coordinates
+     * @return the evenly spaced slot angle under {@code theta}, wrapped around the center of the
+     * sweep area. the same angle if the fisheye warp is disabled.
+     */
+    public float unwarpAngle(float theta) {
+        if (mWarp == null)
+            return theta;
+
+        final float center = mThetaStart + mThetaSweep / 2.0f;
+        theta = (float) (theta - TWO_PI * Math.floor((theta - center + Math.PI) / TWO_PI));
+        return mThetaStart + mWarp.unwarp((theta - mThetaStart) / mThetaSweep) * mThetaSweep;
+    }
+
+    /**
+     * the first position that can be laid-out, positions before it are hidden in the skip area.
+     */
+    private int getFirstLayoutPosition() {
+        return (int) (mCircularOffset / mItemTheta);
+    }
+
+    /**
+     * @return the adapter position of the first child that is at least partially inside the sweep
+     * area, or {@link RecyclerView#NO_POSITION} if there's none.
+     */
+    public int findFirstVisibleItemPosition() {
+        if (mItemTheta <= 0 || getItemCount() == 0)
+            return RecyclerView.NO_POSITION;
+        // theta + itemTheta / 2 > thetaStart
+        final double index = mCircularOffset / mItemTheta - mNumSkipChildren - 0.5;
+        final int position = Math.max(getFirstLayoutPosition(), (int) Math.floor(index + POSITION_EPSILON) + 1);
+        return position < getItemCount() && position <= findLastVisibleItemPosition() ? position : RecyclerView.NO_POSITION;
+    }
+
+    /**
+     * @return the adapter position of the last child that is at least partially inside the sweep
+     * area, or {@link RecyclerView#NO_POSITION} if there's none.
+     */
+    public int findLastVisibleItemPosition() {
+        if (mItemTheta <= 0 || getItemCount() == 0)
+            return RecyclerView.NO_POSITION;
+        // theta - itemTheta / 2 < thetaStart + thetaSweep
+        final double index = (mThetaSweep + mCircularOffset) / mItemTheta - mNumSkipChildren + 0.5;
+        final int position = Math.min(getItemCount() - 1, (int) Math.ceil(index - POSITION_EPSILON) - 1);
+        return position >= Math.max(0, getFirstLayoutPosition()) ? position : RecyclerView.NO_POSITION;
+    }
+
+    /**
+     * @return the adapter position of the first child that is fully inside the sweep area, or
+     * {@link RecyclerView#NO_POSITION} if there's none.
+     */
+    public int findFirstCompletelyVisibleItemPosition() {
+        if (mItemTheta <= 0 || getItemCount() == 0)
+            return RecyclerView.NO_POSITION;
+        // theta - itemTheta / 2 >= thetaStart
+        final double index = mCircularOffset / mItemTheta - mNumSkipChildren + 0.5;
+        final int position = Math.max(getFirstLayoutPosition(), (int) Math.ceil(index - POSITION_EPSILON));
+        return position < getItemCount() && position <= findLastCompletelyVisibleItemPosition() ? position : RecyclerView.NO_POSITION;
+    }
+
+    /**
+     * @return the adapter position of the last child that is fully inside the sweep area, or
+     * {@link RecyclerView#NO_POSITION} if there's none.
+     */
+    public int findLastCompletelyVisibleItemPosition() {
+        if (mItemTheta <= 0 || getItemCount() == 0)
+            return RecyclerView.NO_POSITION;
+        // theta + itemTheta / 2 <= thetaStart + thetaSweep
+        final double index = (mThetaSweep + mCircularOffset) / mItemTheta - mNumSkipChildren - 0.5;
+        final int position = Math.min(getItemCount() - 1, (int) Math.floor(index + POSITION_EPSILON));
+        return position >= Math.max(0, getFirstLayoutPosition()) ? position : RecyclerView.NO_POSITION;
+    }
+
+    /**
+     * @param theta the angle, will be wrapped around the center of the sweep area
+     * @return the adapter position of the visible child which covers {@code theta}, or
+     * {@link RecyclerView#NO_POSITION} if there's none.
+     */
+    public int findPositionAtAngle(float theta) {
+        if (mItemTheta <= 0 || getItemCount() == 0)
+            return RecyclerView.NO_POSITION;
+
+        // wrap theta into [center - PI, center + PI)
+        final float center = mThetaStart + mThetaSweep / 2.0f;
+        theta = (float) (theta - TWO_PI * Math.floor((theta - center + Math.PI) / TWO_PI));
+        theta = unwarpAngle(theta);
+        if (theta < mThetaStart || theta > mThetaStart + mThetaSweep)
+            return RecyclerView.NO_POSITION;
+
+        final int position = (int) Math.floor((theta - mThetaStart + mCircularOffset) / mItemTheta + 0.5) - mNumSkipChildren;
+        if (position < Math.max(0, getFirstLayoutPosition()) || position >= getItemCount())
+            return RecyclerView.NO_POSITION;
+        return position;
+    }
+
+    /**
+     * @param x the x coordinate, relative to the {@link RecyclerView}
+     * @param y the y coordinate, relative to the {@link RecyclerView}
+     * @return the adapter position of the visible child at the angle of ({@code x}, {@code y})
+     * around the layout center, or {@link RecyclerView#NO_POSITION} if there's none.
+     */
+    public int findPositionUnder(float x, float y) {
+        return findPositionAtAngle((float) Math.atan2(mLayoutCenterY - y, x - mLayoutCenterX) + getRenderRotation());
+    }
+
     public void layoutCircular(View child, final float theta) {
+        final int left = getCircularLeft(child, theta);
+        final int top = getCircularTop(child, theta);
+        child.layout(left, top, left + child.getMeasuredWidth(), top + child.getMeasuredHeight());
+    }
+
+    /**
+     * move a laid-out child to {@code theta} by offsetting its bounds, which neither lays out its
+     * subtree nor notifies its layout change listeners.
+     */
+    private void offsetCircular(View child, final float theta) {
+        final int dx = getCircularLeft(child, theta) - child.getLeft();
+        final int dy = getCircularTop(child, theta) - child.getTop();
+        if (dx != 0)
+            child.offsetLeftAndRight(dx);
+        if (dy != 0)
+            child.offsetTopAndBottom(dy);
+    }
+
+    private int getCircularLeft(View child, float theta) {
         final int childWidth = child.getMeasuredWidth();
-        final int childHeight = child.getMeasuredHeight();
-        final float childRadius = Math.min(childWidth, childHeight) / 2.0f;
+        final float childRadius = Math.min(childWidth, child.getMeasuredHeight()) / 2.0f;
         final float childCenterX = (float) (mLayoutCenterX + Math.cos(theta) * (mLayoutRadius - childRadius));
+        return (int) (childCenterX - childWidth / 2);
+    }
+
+    private int getCircularTop(View child, float theta) {
+        final int childHeight = child.getMeasuredHeight();
+        final float childRadius = Math.min(child.getMeasuredWidth(), childHeight) / 2.0f;
         final float childCenterY = (float) (mLayoutCenterY - Math.sin(theta) * (mLayoutRadius - childRadius));
-        final int left = (int) (childCenterX - childWidth / 2);
-        final int top = (int) (childCenterY - childHeight / 2);
-        child.layout(left, top, left + childWidth, top + childHeight);
+        return (int) (childCenterY - childHeight / 2);
+    }
+
+    /**
+     * @param transformer the transformer to apply to every laid-out child, or {@code null} to
+     *                    remove it. the properties the bundled transformers touch and the layer
+     *                    type of the attached children are reset first.
+     */
+    public void setItemTransformer(ItemTransformer transformer) {
+        if (mItemTransformer != transformer) {
+            if (mItemTransformer != null) {
+                for (int i = getChildCount() - 1; i >= 0; --i)
+                    resetTransformedProperties(getChildAt(i));
+            }
+            mItemTransformer = transformer;
+            requestLayout();
+        }
+    }
+
+    private static void resetTransformedProperties(View child) {
+        // the fisheye scale is applied again by the layout pass
+        child.setScaleX(1.0f);
+        child.setScaleY(1.0f);
+        child.setAlpha(1.0f);
+        child.setRotation(0.0f);
+        child.setRotationX(0.0f);
+        child.setRotationY(0.0f);
+        ((LayoutParams) child.getLayoutParams()).mLayoutScale = 1.0f;
+        clearLayerType(child);
+    }
+
+    private static void clearLayerType(View child) {
+        if (child.getLayerType() != View.LAYER_TYPE_NONE)
+            child.setLayerType(View.LAYER_TYPE_NONE, null);
+    }
+
+    public ItemTransformer getItemTransformer() {
+        return mItemTransformer;
+    }
+
+    /**
+     * while an {@link ItemTransformer} is set, switch the children to hardware layers while the
+     * view is dragging / settling, so the transformed properties don't redraw the item content.
+     * the children are switched back to {@link View#LAYER_TYPE_NONE} when the scrolling stops.
+     *
+     * @param enabled true to enable (default), false to leave the layer type alone.
+     */
+    public void setHardwareLayersWhileScrolling(boolean enabled) {
+        if (mHardwareLayersWhileScrolling != enabled) {
+            mHardwareLayersWhileScrolling = enabled;
+            if (mItemTransformer != null)
+                updateChildrenLayerType();
+        }
+    }
+
+    public boolean isHardwareLayersWhileScrolling() {
+        return mHardwareLayersWhileScrolling;
+    }
+
+    @Override
+    public void onScrollStateChanged(int state) {
+        super.onScrollStateChanged(state);
+        if (state == RecyclerView.SCROLL_STATE_IDLE)
+            mScrollVelocity = 0;
+        if (mScrollState != state) {
+            mScrollState = state;
+            if (mItemTransformer != null && mHardwareLayersWhileScrolling)
+                updateChildrenLayerType();
+            if (state == RecyclerView.SCROLL_STATE_IDLE && mOnSelectionChangedListener != null) {
+                // deliver the last change before the settle
+                dispatchSelectionChanged();
+                mOnSelectionChangedListener.onSelectionSettled(mDispatchedSelection);
+            }
+        }
+    }
+
+    /**
+     * @param theta the angle of the "pointer", the item laid-out there is the selected one.
+     *              the center of the sweep area by default, which follows
+     *              {@link #setLayoutRange(float, float)}. {@link Float#NaN} to go back to it.
+     */
+    public void setSelectionAngle(float theta) {
+        mSelectionAngleSet = !Float.isNaN(theta);
+        if (!mSelectionAngleSet)
+            theta = mThetaStart + mThetaSweep / 2;
+        if (mSelectionAngle != theta) {
+            mSelectionAngle = theta;
+            updateSelection();
+        }
+    }
+
+    public float getSelectionAngle() {
+        return mSelectionAngle;
+    }
+
+    /**
+     * @return the adapter position at the selection angle, or {@link RecyclerView#NO_POSITION}
+     * if there's none. computed from the offset, it doesn't depend on the children.
+     */
+    public int getSelectedPosition() {
+        return mSelectedPosition;
+    }
+
+    /**
+     * @param listener the listener, or {@code null} to remove it.
+     */
+    public void setOnSelectionChangedListener(OnSelectionChangedListener listener) {
+        mOnSelectionChangedListener = listener;
+        mDispatchedSelection = mSelectedPosition;
+    }
+
+    private void updateSelection() {
+        mSelectedPosition = findPositionAtAngle(mSelectionAngle);
+        if (mOnSelectionChangedListener != null && mSelectedPosition != mDispatchedSelection && !mSelectionDispatchPosted && mRecyclerView != null) {
+            mSelectionDispatchPosted = true;
+            ViewCompat.postOnAnimation(mRecyclerView, mSelectionDispatcher);
+        }
+    }
+
+    private void dispatchSelectionChanged() {
+        if (mSelectionDispatchPosted && mRecyclerView != null)
+            mRecyclerView.removeCallbacks(mSelectionDispatcher);
+        mSelectionDispatchPosted = false;
+
+        if (mOnSelectionChangedListener == null || mSelectedPosition == mDispatchedSelection)
+            return;
+        final int oldPosition = mDispatchedSelection;
+        mDispatchedSelection = mSelectedPosition;
+        mOnSelectionChangedListener.onSelectionChanged(oldPosition, mSelectedPosition);
+    }
+
+    /**
+     * the selected item changes are coalesced, listeners are called at most once per frame no
+     * matter how many items passed the selection angle in between.
+     */
+    public abstract static class OnSelectionChangedListener {
+        /**
+         * @param oldPosition the previously reported selection, may be {@link RecyclerView#NO_POSITION}
+         * @param newPosition the selected position, may be {@link RecyclerView#NO_POSITION}
+         */
+        public void onSelectionChanged(int oldPosition, int newPosition) {
+        }
+
+        /**
+         * called when the scrolling stopped.
+         *
+         * @param position the selected position, may be {@link RecyclerView#NO_POSITION}
+         */
+        public void onSelectionSettled(int position) {
+        }
+    }
+
+    private void updateChildrenLayerType() {
+        for (int i = getChildCount() - 1; i >= 0; --i)
+            updateLayerType(getChildAt(i));
+    }
+
+    private void updateLayerType(View child) {
+        final int layerType = mHardwareLayersWhileScrolling && mScrollState != RecyclerView.SCROLL_STATE_IDLE ?
+                View.LAYER_TYPE_HARDWARE :
+                View.LAYER_TYPE_NONE;
+        if (child.getLayerType() != layerType)
+            child.setLayerType(layerType, null);
+    }
+
+    /**
+     * Transforms the item views according to their layout angle. Implementations should only touch
+     * properties that don't invalidate the content of the view, like scale, alpha, rotation or
+     * translation.
+     */
+    public interface ItemTransformer {
+        /**
+         * @param view   the item view
+         * @param theta  the angle which the item is being laid-out
+         * @param offset the offset for the item which it's before or after the sweep area
+         */
+        void transformItem(View view, float theta, float offset);
+    }
+
+    /**
+     * @param epsilon the minimum change of theta or offset before
+     *                {@link ViewHolder#setLayoutAngle(float, float)} is called again for the same
+     *                holder. 0 only skips the call if nothing changed.
+     */
+    public void setLayoutAngleEpsilon(float epsilon) {
+        if (epsilon < 0)
+            throw new IllegalArgumentException("epsilon < 0");
+        mLayoutAngleEpsilon = epsilon;
+    }
+
+    public float getLayoutAngleEpsilon() {
+        return mLayoutAngleEpsilon;
+    }
+
+    /**
+     * @param listener the listener to receive the angles of all laid-out children once per layout
+     *                 pass, not for the pre-layout pass of the item animations, or {@code null}
+     *                 to remove it.
+     */
+    public void setOnLayoutAnglesListener(OnLayoutAnglesListener listener) {
+        mOnLayoutAnglesListener = listener;
+    }
+
+    public interface OnLayoutAnglesListener {
+        /**
+         * called once after every layout pass. the arrays are reused across calls, copy the values
+         * if you need them later. only the first {@code count} elements are valid.
+         *
+         * @param count     number of laid-out children
+         * @param positions the adapter positions of the children
+         * @param thetas    the angles which the children are laid-out
+         * @param offsets   the offsets of the children, see {@link ViewHolder#setLayoutAngle(float, float)}
+         */
+        void onLayoutAngles(int count, int[] positions, float[] thetas, float[] offsets);
     }
 
     public static abstract class ViewHolder extends RecyclerView.ViewHolder {
+        /**
+         * the last values passed to {@link #setLayoutAngle(float, float)}, NaN if it has to be
+         * called on next layout.
+         */
+        float mLayoutTheta = Float.NaN;
+        float mLayoutOffset = Float.NaN;
+
+        public static final int ARC_HIDDEN = 0;
+        public static final int ARC_PARTIALLY_VISIBLE = 1;
+        public static final int ARC_FULLY_VISIBLE = 2;
+
+        int mArcVisibility = ARC_HIDDEN;
+
         public ViewHolder(View itemView) {
             super(itemView);
         }
 
+        @Override
+        void setFlags(int flags, int mask) {
+            super.setFlags(flags, mask);
+            // bound to (maybe) different data, the content has to be updated again.
+            if ((mask & FLAG_BOUND) != 0)
+                invalidateLayoutAngle();
+        }
+
+        @Override
+        void resetInternal() {
+            super.resetInternal();
+            invalidateLayoutAngle();
+            mArcVisibility = ARC_HIDDEN;
+        }
+
+        /**
+         * force {@link #setLayoutAngle(float, float)} to be called on next layout pass
+         */
+        public void invalidateLayoutAngle() {
+            mLayoutTheta = Float.NaN;
+            mLayoutOffset = Float.NaN;
+        }
+
         /**
          * @param theta  the angle which current item is being laid-out
          * @param offset the offset for the child which it's before or after the sweep area
          */
         public abstract void setLayoutAngle(float theta, float offset);
+
+        /**
+         * @return one of {@link #ARC_HIDDEN}, {@link #ARC_PARTIALLY_VISIBLE} or
+         * {@link #ARC_FULLY_VISIBLE}, as of the last layout pass.
+         */
+        public int getArcVisibility() {
+            return mArcVisibility;
+        }
+
+        /**
+         * called when the item rotates into the sweep area, before {@link #onPartiallyVisible()}
+         * or {@link #onFullyVisible()}. start animations, decoders, etc. here.
+         */
+        public void onEnterArc() {
+        }
+
+        /**
+         * called when the item rotates out of the sweep area, or is removed from the layout. stop
+         * animations, decoders, etc. here.
+         */
+        public void onLeaveArc() {
+        }
+
+        /**
+         * called when the item becomes fully inside the sweep area.
+         */
+        public void onFullyVisible() {
+        }
+
+        /**
+         * called when the item becomes partially outside the sweep area, either from entering or
+         * from being fully visible.
+         */
+        public void onPartiallyVisible() {
+        }
     }
 
     public float scrollCircularlyBy(float dTheta, RecyclerView.Recycler recycler, RecyclerView.State state) {
@@ -274,22 +1570,139 @@ public class CircularLayoutManager extends RecyclerView.LayoutManager implements
             return dTheta;
 
         float offset = mCircularOffset + dTheta;
-        if (offset > mCircularRange - Math.abs(mThetaSweep)) {
-            dTheta = offset - mCircularRange - Math.abs(mThetaSweep);
-            offset = mCircularRange - Math.abs(mThetaSweep);
-        }
-        if (offset < 0) {
-            dTheta = offset;
+        if (offset > getMaxCircularOffset())
+            offset = getMaxCircularOffset();
+        if (offset < 0)
             offset = 0;
-        }
 
-        if (mCircularOffset != offset) {
+        // the actually consumed angle
+        dTheta = offset - mCircularOffset;
+        if (dTheta != 0) {
+            trackScrollVelocity(dTheta);
             mCircularOffset = offset;
-            requestLayout();
+            if (!applyRigidRotation())
+                requestLayout();
+            updateSelection();
         }
         return dTheta;
     }
 
+    /**
+     * When enabled, scrolling that doesn't move an item boundary across the edges of the sweep
+     * area moves the attached children along the arc to their new angles instead of laying them
+     * out again: their bounds are only offset, so they are neither bound, measured nor laid-out,
+     * and the {@link RecyclerView} itself is never transformed. A real layout happens as soon as
+     * a child enters or leaves (fully or partially) the sweep area.
+     * <p>
+     * Only use this when all items have the same size and their content doesn't depend on the
+     * layout angle, because {@link ViewHolder#setLayoutAngle(float, float)} isn't called during
+     * the rotation. The {@link ItemTransformer} is called with the new angle and offset.
+     *
+     * @param enabled true to enable, false (default) to always layout.
+     */
+    public void setRigidRotationEnabled(boolean enabled) {
+        if (mRigidRotationEnabled != enabled) {
+            mRigidRotationEnabled = enabled;
+            requestLayout();
+        }
+    }
+
+    public boolean isRigidRotationEnabled() {
+        return mRigidRotationEnabled;
+    }
+
+    /**
+     * @return how far the children are currently rendered clockwise from where the circular
+     * offset would lay them out, in radians. angles computed from touch coordinates have to be
+     * compensated by adding this value.
+     */
+    public float getRenderRotation() {
+        return mRenderRotation - mRigidRotation;
+    }
+
+    /**
+     * render an overscroll past either end by offsetting the attached children along the arc,
+     * without laying them out again. works whether or not the rigid rotation is enabled, and
+     * leaves the translation to the item animator and {@link CircularItemReorderHelper}.
+     *
+     * @param theta the angle past the end, positive past {@link #getMaxCircularOffset()},
+     *              negative before 0. 0 to stop.
+     */
+    public void setOverscrollTheta(float theta) {
+        if (mOverscrollTheta == theta)
+            return;
+        mOverscrollTheta = theta;
+        applyRenderRotation();
+    }
+
+    public float getOverscrollTheta() {
+        return mOverscrollTheta;
+    }
+
+    private void captureRigidRotationBase() {
+        mRigidLayoutOffset = mCircularOffset;
+        mRigidFirst = findFirstVisibleItemPosition();
+        mRigidLast = findLastVisibleItemPosition();
+        mRigidFirstCompletely = findFirstCompletelyVisibleItemPosition();
+        mRigidLastCompletely = findLastCompletelyVisibleItemPosition();
+        mRigidBaseValid = true;
+    }
+
+    /**
+     * @return true if the scroll was rendered by moving the children, false if a layout is needed.
+     */
+    private boolean applyRigidRotation() {
+        // the warp doesn't rotate along with the offset
+        if (!mRigidRotationEnabled || mWarp != null || !mRigidBaseValid || mRecyclerView == null || isLayoutRequested())
+            return false;
+        if (mRigidFirst != findFirstVisibleItemPosition() ||
+                mRigidLast != findLastVisibleItemPosition() ||
+                mRigidFirstCompletely != findFirstCompletelyVisibleItemPosition() ||
+                mRigidLastCompletely != findLastCompletelyVisibleItemPosition())
+            return false;
+
+        mRigidRotation = mCircularOffset - mRigidLayoutOffset;
+        applyRenderRotation();
+        return true;
+    }
+
+    /**
+     * move every attached child clockwise from the angle it was laid-out at, by the rigid
+     * rotation plus the overscroll.
+     */
+    private void applyRenderRotation() {
+        if (mRecyclerView == null)
+            return;
+
+        mRenderRotation = mRigidRotation + mOverscrollTheta;
+        for (int i = getChildCount() - 1; i >= 0; --i) {
+            final View child = getChildAt(i);
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            lp.mRenderTheta = lp.mLayoutTheta - mRenderRotation;
+            offsetCircular(child, lp.mRenderTheta);
+            // the edge items change their visible part while moving, or a fade would freeze.
+            if (mItemTransformer != null)
+                mItemTransformer.transformItem(child, lp.mRenderTheta, computeChildOffset(lp.mRenderTheta));
+        }
+    }
+
+    /**
+     * forget the rotation before a layout pass, which lays out every child at its real angle and
+     * so drops the offsets.
+     */
+    private void resetRigidRotation() {
+        mRigidBaseValid = false;
+        mRigidRotation = 0;
+        if (mRenderRotation == 0)
+            return;
+
+        mRenderRotation = 0;
+        for (int i = getChildCount() - 1; i >= 0; --i) {
+            final LayoutParams lp = (LayoutParams) getChildAt(i).getLayoutParams();
+            lp.mRenderTheta = lp.mLayoutTheta;
+        }
+    }
+
     @Override
     public int scrollHorizontallyBy(int dx, RecyclerView.Recycler recycler, RecyclerView.State state) {
         return dx;
@@ -301,7 +1714,7 @@ public class CircularLayoutManager extends RecyclerView.LayoutManager implements
     }
 
     public boolean canScrollCircularly() {
-        return getItemCount() > mNumDisplayChildren - mNumSkipChildren;
+        return getItemCount() > mDisplayDensity - mNumSkipChildren;
     }
 
     /**
@@ -327,7 +1740,7 @@ public class CircularLayoutManager extends RecyclerView.LayoutManager implements
     public float computeCircularScrollExtent(RecyclerView.State state) {
         return getChildCount() == 0 ?
                 0 :
-                (mNumDisplayChildren - mNumSkipChildren) * mItemTheta;
+                (mDisplayDensity - mNumSkipChildren) * mItemTheta;
     }
 
     public float computeCircularScrollOffset(RecyclerView.State state) {
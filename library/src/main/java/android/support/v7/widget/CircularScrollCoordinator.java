@@ -0,0 +1,105 @@
+package android.support.v7.widget;
+
+import java.util.ArrayList;
+
+/**
+ * Lets several {@link ACircularRecyclerView}s with the same item layouts share one
+ * {@link RecyclerView.RecycledViewPool}, and optionally couples their scrolling.
+ * <p>
+ * Coupled views are scrolled synchronously from whichever view is being dragged or flung, in the
+ * same touch event or animation frame, so all of them are laid out in the same traversal. The
+ * angle is scaled by the ratio of the views, e.g. a secondary wheel with ratio 0.1 turns one
+ * tenth as fast as the primary one with ratio 1.
+ */
+public class CircularScrollCoordinator {
+    private final RecyclerView.RecycledViewPool mPool;
+    private final ArrayList<ACircularRecyclerView> mViews = new ArrayList<>();
+    private float[] mRatios = new float[4];
+    private boolean mDispatching;
+
+    public CircularScrollCoordinator() {
+        this(new RecyclerView.RecycledViewPool());
+    }
+
+    public CircularScrollCoordinator(RecyclerView.RecycledViewPool pool) {
+        mPool = pool;
+    }
+
+    public RecyclerView.RecycledViewPool getRecycledViewPool() {
+        return mPool;
+    }
+
+    /**
+     * share the pool with {@code view} without coupling the scrolling
+     */
+    public void add(ACircularRecyclerView view) {
+        add(view, 0.0f);
+    }
+
+    /**
+     * @param view  the view to share the pool with
+     * @param ratio the scrolling ratio of {@code view}, 0 to not couple the scrolling.
+     */
+    public void add(ACircularRecyclerView view, float ratio) {
+        int index = mViews.indexOf(view);
+        if (index == -1) {
+            index = mViews.size();
+            mViews.add(view);
+            if (mRatios.length < mViews.size()) {
+                final float[] ratios = new float[mRatios.length * 2];
+                System.arraycopy(mRatios, 0, ratios, 0, mRatios.length);
+                mRatios = ratios;
+            }
+            view.setRecycledViewPool(mPool);
+            view.setScrollCoordinator(this);
+        }
+        mRatios[index] = ratio;
+    }
+
+    public void remove(ACircularRecyclerView view) {
+        final int index = mViews.indexOf(view);
+        if (index == -1)
+            return;
+
+        mViews.remove(index);
+        System.arraycopy(mRatios, index + 1, mRatios, index, mRatios.length - index - 1);
+        view.setScrollCoordinator(null);
+        view.setRecycledViewPool(null);
+    }
+
+    /**
+     * a coupled view is being touched or starts flinging on its own, stop the others so they
+     * follow it instead of running their own flingers.
+     */
+    void onTouchDown(ACircularRecyclerView source) {
+        final int sourceIndex = mViews.indexOf(source);
+        if (sourceIndex == -1 || mRatios[sourceIndex] == 0)
+            return;
+
+        for (int i = mViews.size() - 1; i >= 0; --i) {
+            if (i != sourceIndex && mRatios[i] != 0)
+                mViews.get(i).stopScroll();
+        }
+    }
+
+    void onScrolled(ACircularRecyclerView source, float dTheta) {
+        // the coupled views report their own scrolling back to us, don't bounce it around.
+        if (mDispatching)
+            return;
+
+        final int sourceIndex = mViews.indexOf(source);
+        if (sourceIndex == -1 || mRatios[sourceIndex] == 0)
+            return;
+
+        mDispatching = true;
+        try {
+            final float unit = dTheta / mRatios[sourceIndex];
+            for (int i = mViews.size() - 1; i >= 0; --i) {
+                if (i != sourceIndex && mRatios[i] != 0)
+                    mViews.get(i).scrollBy(unit * mRatios[i]);
+            }
+        } finally {
+            mDispatching = false;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package android.support.v7.widget;
+
+/**
+ * The Sarkar-Brown graphical fisheye {@code g(x) = (d + 1) x / (d x + 1)} applied on both sides
+ * of a focus, on the normalized range [0, 1] of the sweep area.
+ * <p>
+ * The warp and its inverse are sampled once into tables, so the layout and the hit-testing only
+ * cost a lookup and a linear interpolation. The derivative (the magnification) is a single
+ * division and is computed exactly, its peak at the focus would be flattened by the table.
+ * Outside of [0, 1] the warp continues linearly with the magnification of the nearest end.
+ */
+final class FisheyeWarp {
+    private static final int TABLE_SIZE = 256;
+
+    private final float mFocus;
+    private final float mDistortion;
+    private final float[] mWarped = new float[TABLE_SIZE + 1];
+    private final float mStartScale;
+    private final float mEndScale;
+    private final float[] mUnwarped = new float[TABLE_SIZE + 1];
+
+    /**
+     * @param focus      the focus on the normalized range, clamped to [0, 1]
+     * @param distortion the distortion factor, the magnification at the focus is
+     *                   {@code distortion + 1}
+     */
+    FisheyeWarp(float focus, float distortion) {
+        mFocus = Math.max(0.0f, Math.min(focus, 1.0f));
+        mDistortion = Math.max(0.0f, distortion);
+        for (int i = 0; i <= TABLE_SIZE; ++i) {
+            final float u = (float) i / TABLE_SIZE;
+            mWarped[i] = computeWarp(u);
+            mUnwarped[i] = computeUnwarp(u);
+        }
+        mStartScale = computeScale(0.0f);
+        mEndScale = computeScale(1.0f);
+    }
+
+    float getFocus() {
+        return mFocus;
+    }
+
+    float getDistortion() {
+        return mDistortion;
+    }
+
+    /**
+     * @param u the uniform position
+     * @return the warped position
+     */
+    float warp(float u) {
+        if (u < 0.0f)
+            return u * mStartScale;
+        if (u > 1.0f)
+            return 1.0f + (u - 1.0f) * mEndScale;
+        return lookup(mWarped, u);
+    }
+
+    /**
+     * @param u the uniform position
+     * @return the magnification at {@code u}
+     */
+    float scale(float u) {
+        if (u <= 0.0f)
+            return mStartScale;
+        if (u >= 1.0f)
+            return mEndScale;
+        return computeScale(u);
+    }
+
+    /**
+     * @param w the warped position
+     * @return the uniform position
+     */
+    float unwarp(float w) {
+        if (w < 0.0f)
+            return w / mStartScale;
+        if (w > 1.0f)
+            return 1.0f + (w - 1.0f) / mEndScale;
+        return lookup(mUnwarped, w);
+    }
+
+    private static float lookup(float[] table, float u) {
+        final float index = u * TABLE_SIZE;
+        final int i = Math.min((int) index, TABLE_SIZE - 1);
+        final float fraction = index - i;
+        return table[i] + (table[i + 1] - table[i]) * fraction;
+    }
+
+    private float computeWarp(float u) {
+        if (u < mFocus)
+            return mFocus - g((mFocus - u) / mFocus) * mFocus;
+        if (u > mFocus)
+            return mFocus + g((u - mFocus) / (1.0f - mFocus)) * (1.0f - mFocus);
+        return mFocus;
+    }
+
+    private float computeScale(float u) {
+        final float side = u < mFocus ? mFocus : 1.0f - mFocus;
+        if (side == 0.0f)
+            return mDistortion + 1.0f;
+        final float x = Math.abs(u - mFocus) / side;
+        final float denominator = mDistortion * x + 1.0f;
+        return (mDistortion + 1.0f) / (denominator * denominator);
+    }
+
+    private float computeUnwarp(float w) {
+        if (w < mFocus)
+            return mFocus - gInverse((mFocus - w) / mFocus) * mFocus;
+        if (w > mFocus)
+            return mFocus + gInverse((w - mFocus) / (1.0f - mFocus)) * (1.0f - mFocus);
+        return mFocus;
+    }
+
+    private float g(float x) {
+        return (mDistortion + 1.0f) * x / (mDistortion * x + 1.0f);
+    }
+
+    private float gInverse(float y) {
+        return y / (mDistortion + 1.0f - mDistortion * y);
+    }
+}
@@ -0,0 +1,108 @@
+package android.support.v7.widget;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.v4.view.ViewCompat;
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * Runs {@link #doFrame(long)} once on the next animation frame, with the vsync timestamp of that
+ * frame through {@link Choreographer} on API 16+, or {@link System#nanoTime()} on older platforms.
+ * Posting again before the frame is a no-op, so the callback runs at most once per frame.
+ */
+abstract class FrameCallbackCompat implements Runnable {
+    private final View mView;
+    private Object mChoreographerCallback;
+    private boolean mPosted;
+
+    FrameCallbackCompat(View view) {
+        mView = view;
+    }
+
+    /**
+     * @param frameTimeNanos the time the frame started rendering, in the {@link System#nanoTime()}
+     *                       time base.
+     */
+    abstract void doFrame(long frameTimeNanos);
+
+    final boolean isPosted() {
+        return mPosted;
+    }
+
+    final void postFrame() {
+        if (mPosted)
+            return;
+
+        mPosted = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mChoreographerCallback == null)
+                mChoreographerCallback = new ChoreographerCallback(this);
+            ((ChoreographerCallback) mChoreographerCallback).post();
+        } else {
+            ViewCompat.postOnAnimation(mView, this);
+        }
+    }
+
+    /**
+     * run {@link #doFrame(long)} on the first frame after {@code delayMillis}, without waking up
+     * for the frames in between.
+     */
+    final void postFrameDelayed(long delayMillis) {
+        if (mPosted)
+            return;
+
+        mPosted = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mChoreographerCallback == null)
+                mChoreographerCallback = new ChoreographerCallback(this);
+            ((ChoreographerCallback) mChoreographerCallback).postDelayed(delayMillis);
+        } else {
+            ViewCompat.postOnAnimationDelayed(mView, this, delayMillis);
+        }
+    }
+
+    final void removeFrame() {
+        if (!mPosted)
+            return;
+
+        mPosted = false;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)
+            ((ChoreographerCallback) mChoreographerCallback).remove();
+        else
+            mView.removeCallbacks(this);
+    }
+
+    @Override
+    public final void run() {
+        mPosted = false;
+        doFrame(System.nanoTime());
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class ChoreographerCallback implements Choreographer.FrameCallback {
+        private final FrameCallbackCompat mCallback;
+
+        ChoreographerCallback(FrameCallbackCompat callback) {
+            mCallback = callback;
+        }
+
+        void post() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void postDelayed(long delayMillis) {
+            Choreographer.getInstance().postFrameCallbackDelayed(this, delayMillis);
+        }
+
+        void remove() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mCallback.mPosted = false;
+            mCallback.doFrame(frameTimeNanos);
+        }
+    }
+}
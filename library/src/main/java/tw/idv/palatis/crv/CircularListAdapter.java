@@ -0,0 +1,167 @@
+package tw.idv.palatis.crv;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * An adapter over an immutable {@link List} which is replaced as a whole with
+ * {@link #submitList(List)}. The difference between the old and the new list is computed with
+ * {@link DiffUtil} on a background thread and only the minimal item operations are dispatched,
+ * so only the changed items are bound again. The
+ * {@link android.support.v7.widget.CircularLayoutManager} keeps the item at the center of the
+ * sweep area at the same angle while the operations are applied.
+ *
+ * @param <T>  the item type
+ * @param <VH> the view holder type
+ */
+public abstract class CircularListAdapter<T, VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> {
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+    private static Executor sDiffExecutor;
+
+    public interface ItemDiff<T> {
+        /**
+         * @return true if both items represent the same entity, e.g. have the same id.
+         */
+        boolean areItemsTheSame(@NonNull T oldItem, @NonNull T newItem);
+
+        /**
+         * only called if {@link #areItemsTheSame(Object, Object)} returned true.
+         *
+         * @return true if the item doesn't have to be bound again.
+         */
+        boolean areContentsTheSame(@NonNull T oldItem, @NonNull T newItem);
+    }
+
+    private final ItemDiff<T> mItemDiff;
+    private final Executor mDiffExecutor;
+
+    private List<T> mItems = Collections.emptyList();
+    private int mGeneration = 0;
+
+    public CircularListAdapter(@NonNull ItemDiff<T> itemDiff) {
+        this(itemDiff, getDiffExecutor());
+    }
+
+    /**
+     * @param itemDiff     compares the items
+     * @param diffExecutor computes the differences, off the main thread
+     */
+    public CircularListAdapter(@NonNull ItemDiff<T> itemDiff, @NonNull Executor diffExecutor) {
+        mItemDiff = itemDiff;
+        mDiffExecutor = diffExecutor;
+    }
+
+    private static synchronized Executor getDiffExecutor() {
+        if (sDiffExecutor == null) {
+            sDiffExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "CircularRecyclerView-diff");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        }
+        return sDiffExecutor;
+    }
+
+    public T getItem(int position) {
+        return mItems.get(position);
+    }
+
+    public List<T> getItems() {
+        return mItems;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mItems.size();
+    }
+
+    public void submitList(@Nullable List<T> items) {
+        submitList(items, null);
+    }
+
+    /**
+     * replace the items. the list must not be modified afterwards. if another list is
+     * submitted before the differences are computed, this one is dropped.
+     *
+     * @param items    the new items, null for none
+     * @param onCommit called on the main thread after the update is dispatched, may be null
+     */
+    public void submitList(@Nullable List<T> items, @Nullable final Runnable onCommit) {
+        final List<T> newItems = items == null ? Collections.<T>emptyList() : items;
+        final List<T> oldItems = mItems;
+        final int generation = ++mGeneration;
+
+        if (newItems == oldItems) {
+            if (onCommit != null)
+                onCommit.run();
+            return;
+        }
+
+        // nothing to compare, no reason to go to the background
+        if (oldItems.isEmpty() || newItems.isEmpty()) {
+            mItems = newItems;
+            if (!oldItems.isEmpty())
+                notifyItemRangeRemoved(0, oldItems.size());
+            if (!newItems.isEmpty())
+                notifyItemRangeInserted(0, newItems.size());
+            if (onCommit != null)
+                onCommit.run();
+            return;
+        }
+
+        mDiffExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                    @Override
+                    public int getOldListSize() {
+                        return oldItems.size();
+                    }
+
+                    @Override
+                    public int getNewListSize() {
+                        return newItems.size();
+                    }
+
+                    @Override
+                    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                        return mItemDiff.areItemsTheSame(oldItems.get(oldItemPosition), newItems.get(newItemPosition));
+                    }
+
+                    @Override
+                    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                        return mItemDiff.areContentsTheSame(oldItems.get(oldItemPosition), newItems.get(newItemPosition));
+                    }
+                });
+
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // a newer list has been submitted in the mean time.
+                        if (generation != mGeneration)
+                            return;
+
+                        mItems = newItems;
+                        result.dispatchUpdatesTo(CircularListAdapter.this);
+                        if (onCommit != null)
+                            onCommit.run();
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,160 @@
+package tw.idv.palatis.crv.decorations;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.support.v7.widget.CircularLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * Base class for decorations drawn along the arc of a {@link CircularLayoutManager}.
+ * <p>
+ * Every slot is drawn in its own coordinates: the canvas is translated to the layout center
+ * and rotated so the positive x axis points to the center of the slot, the slot spans
+ * [-slotTheta / 2, slotTheta / 2] around it, where {@code slotTheta = itemTheta * scale} is
+ * wider near the focus of the fisheye warp. The angles come from the layout manager, the
+ * geometry built with the helpers is cached and only rebuilt when it changes, so without the
+ * warp drawing a frame allocates nothing and computes no trigonometry.
+ */
+public abstract class ArcItemDecoration extends RecyclerView.ItemDecoration {
+    private float mItemTheta = Float.NaN;
+    private float mLayoutRadius = Float.NaN;
+
+    private final Path mWedgePath = new Path();
+    private final RectF mOval = new RectF();
+    private float mWedgeSlotTheta = Float.NaN;
+    private float mWedgeInnerRadius = Float.NaN;
+    private float mWedgeOuterRadius = Float.NaN;
+
+    @Override
+    public void onDraw(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        drawSlots(c, parent, false);
+    }
+
+    @Override
+    public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        drawSlots(c, parent, true);
+    }
+
+    private void drawSlots(Canvas c, RecyclerView parent, boolean over) {
+        if (!(parent.getLayoutManager() instanceof CircularLayoutManager))
+            return;
+
+        final CircularLayoutManager layout = (CircularLayoutManager) parent.getLayoutManager();
+        final float itemTheta = layout.getItemTheta();
+        final float radius = layout.getLayoutRadius();
+        if (itemTheta != mItemTheta || radius != mLayoutRadius) {
+            mItemTheta = itemTheta;
+            mLayoutRadius = radius;
+            onGeometryChanged(itemTheta, radius);
+        }
+
+        final float cx = layout.getLayoutCenterX();
+        final float cy = layout.getLayoutCenterY();
+        for (int i = 0, count = parent.getChildCount(); i < count; ++i) {
+            final View child = parent.getChildAt(i);
+            final CircularLayoutManager.LayoutParams lp = (CircularLayoutManager.LayoutParams) child.getLayoutParams();
+            final float theta = lp.getLayoutTheta();
+            if (Float.isNaN(theta))
+                continue;
+
+            final int saveCount = c.save();
+            c.translate(cx, cy);
+            // the layout angles are counterclockwise, the canvas rotates clockwise.
+            c.rotate((float) -Math.toDegrees(theta));
+            if (over)
+                onDrawSlotOver(c, child, lp.getViewAdapterPosition(), theta, lp.getLayoutOffset(), lp.getLayoutScale());
+            else
+                onDrawSlot(c, child, lp.getViewAdapterPosition(), theta, lp.getLayoutOffset(), lp.getLayoutScale());
+            c.restoreToCount(saveCount);
+        }
+    }
+
+    /**
+     * called before drawing when the item theta or the layout radius changed, build the cached
+     * geometry here.
+     */
+    protected void onGeometryChanged(float itemTheta, float radius) {
+    }
+
+    /**
+     * draw below the children, in the coordinates of the slot.
+     *
+     * @param c        the canvas, rotated to the slot
+     * @param child    the child in the slot
+     * @param position the adapter position of the child
+     * @param theta    the angle the slot is laid-out at
+     * @param offset   the visible part of the slot, see {@link CircularLayoutManager.LayoutParams#getLayoutOffset()}
+     * @param scale    the magnification of the slot, 1 unless the fisheye warp is enabled. pass
+     *                 {@code getItemTheta() * scale} to the helpers as the slot theta.
+     */
+    protected void onDrawSlot(Canvas c, View child, int position, float theta, float offset, float scale) {
+    }
+
+    /**
+     * draw over the children, in the coordinates of the slot, see
+     * {@link #onDrawSlot(Canvas, View, int, float, float, float)}
+     */
+    protected void onDrawSlotOver(Canvas c, View child, int position, float theta, float offset, float scale) {
+    }
+
+    /**
+     * @return the angle of a slot, as of the last frame
+     */
+    protected final float getItemTheta() {
+        return mItemTheta;
+    }
+
+    /**
+     * @return the layout radius, as of the last frame
+     */
+    protected final float getLayoutRadius() {
+        return mLayoutRadius;
+    }
+
+    /**
+     * draw a tick through the center of the slot.
+     */
+    protected final void drawCenterTick(Canvas c, float innerRadius, float outerRadius, Paint paint) {
+        c.drawLine(innerRadius, 0, outerRadius, 0, paint);
+    }
+
+    /**
+     * draw a tick on the leading edge of the slot, the one towards the lower positions. drawn
+     * for every slot it divides each pair of neighbours once.
+     *
+     * @param slotTheta the angular width of the slot, {@code getItemTheta() * scale}
+     */
+    protected final void drawEdgeTick(Canvas c, float slotTheta, float innerRadius, float outerRadius, Paint paint) {
+        // the lower positions are clockwise, which is the direction the canvas rotates.
+        final int saveCount = c.save();
+        c.rotate((float) Math.toDegrees(slotTheta / 2));
+        c.drawLine(innerRadius, 0, outerRadius, 0, paint);
+        c.restoreToCount(saveCount);
+    }
+
+    /**
+     * @param slotTheta the angular width of the slot, {@code getItemTheta() * scale}
+     * @return the annular wedge covering the slot between the two radii, rebuilt only when the
+     * arguments change, i.e. for every slot with a different scale under the fisheye warp.
+     * don't modify it.
+     */
+    protected final Path getWedgePath(float slotTheta, float innerRadius, float outerRadius) {
+        if (mWedgeSlotTheta != slotTheta || mWedgeInnerRadius != innerRadius || mWedgeOuterRadius != outerRadius) {
+            mWedgeSlotTheta = slotTheta;
+            mWedgeInnerRadius = innerRadius;
+            mWedgeOuterRadius = outerRadius;
+
+            final float half = (float) Math.toDegrees(slotTheta / 2);
+            mWedgePath.reset();
+            mOval.set(-outerRadius, -outerRadius, outerRadius, outerRadius);
+            mWedgePath.arcTo(mOval, -half, half * 2, true);
+            mOval.set(-innerRadius, -innerRadius, innerRadius, innerRadius);
+            mWedgePath.arcTo(mOval, half, -half * 2, false);
+            mWedgePath.close();
+        }
+        return mWedgePath;
+    }
+}
@@ -0,0 +1,31 @@
+package tw.idv.palatis.crv.decorations;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.view.View;
+
+/**
+ * Draws a tick mark between every pair of neighbouring items, along the rim of the layout.
+ */
+public class TickMarkDecoration extends ArcItemDecoration {
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float mLength;
+
+    /**
+     * @param color       the color of the ticks
+     * @param length      the length of the ticks, inwards from the layout radius
+     * @param strokeWidth the width of the ticks
+     */
+    public TickMarkDecoration(int color, float length, float strokeWidth) {
+        mPaint.setColor(color);
+        mPaint.setStrokeWidth(strokeWidth);
+        mPaint.setStyle(Paint.Style.STROKE);
+        mLength = length;
+    }
+
+    @Override
+    protected void onDrawSlot(Canvas c, View child, int position, float theta, float offset, float scale) {
+        final float radius = getLayoutRadius();
+        drawEdgeTick(c, getItemTheta() * scale, radius - mLength, radius, mPaint);
+    }
+}
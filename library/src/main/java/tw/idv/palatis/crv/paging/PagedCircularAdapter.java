@@ -0,0 +1,129 @@
+package tw.idv.palatis.crv.paging;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.widget.ACircularRecyclerView;
+import android.support.v7.widget.CircularLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.concurrent.Executor;
+
+/**
+ * An adapter backed by a {@link PagedWindow}, for datasets too large (or too far away) to be
+ * loaded at once. Only the pages around the current angular offset are kept in memory, the
+ * pages ahead of the scroll are loaded in the background and positions which are still loading
+ * are bound as placeholders.
+ * <p>
+ * The adapter follows the scroll when attached to an {@link ACircularRecyclerView}.
+ *
+ * @param <T>  the item type
+ * @param <VH> the view holder type
+ */
+public abstract class PagedCircularAdapter<T, VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH>
+        implements PagedWindow.Callback, ACircularRecyclerView.OnCircularScrollListener {
+    private final PagedWindow<T> mWindow;
+
+    private long mLastScrollTimeNanos = 0;
+
+    /**
+     * @param dataSource    where the items come from
+     * @param pageSize      the number of items in a page
+     * @param maxPages      the maximum number of pages kept in memory
+     * @param fetchExecutor runs the {@link PagedWindow.DataSource} calls off the main thread
+     */
+    public PagedCircularAdapter(PagedWindow.DataSource<T> dataSource, int pageSize, int maxPages, Executor fetchExecutor) {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        mWindow = new PagedWindow<>(dataSource, pageSize, maxPages, fetchExecutor, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                handler.post(command);
+            }
+        });
+        mWindow.setCallback(this);
+    }
+
+    public PagedWindow<T> getWindow() {
+        return mWindow;
+    }
+
+    /**
+     * bind a loaded item.
+     */
+    public abstract void onBindItem(VH holder, T item, int position);
+
+    /**
+     * bind a position whose item is still loading, it is bound again once loaded.
+     */
+    public abstract void onBindPlaceholder(VH holder, int position);
+
+    @Override
+    public int getItemCount() {
+        return mWindow.size();
+    }
+
+    @Override
+    public void onBindViewHolder(VH holder, int position) {
+        final T item = mWindow.get(position);
+        if (item == null)
+            onBindPlaceholder(holder, position);
+        else
+            onBindItem(holder, item, position);
+    }
+
+    /**
+     * reload everything, e.g. after the remote dataset changed.
+     */
+    public void invalidate() {
+        mWindow.invalidate();
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        if (recyclerView instanceof ACircularRecyclerView)
+            ((ACircularRecyclerView) recyclerView).addOnCircularScrollListener(this);
+        // kicks off the count if it's not loaded yet
+        mWindow.prefetch(0, -1, 0, 0);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        if (recyclerView instanceof ACircularRecyclerView)
+            ((ACircularRecyclerView) recyclerView).removeOnCircularScrollListener(this);
+        super.onDetachedFromRecyclerView(recyclerView);
+    }
+
+    @Override
+    public void onCircularScrolled(ACircularRecyclerView view, float dTheta, float offset, int scrollState) {
+        final RecyclerView.LayoutManager lm = view.getLayoutManager();
+        if (!(lm instanceof CircularLayoutManager))
+            return;
+
+        final CircularLayoutManager layout = (CircularLayoutManager) lm;
+        final long now = System.nanoTime();
+        float velocity = 0;
+        if (scrollState != RecyclerView.SCROLL_STATE_IDLE && mLastScrollTimeNanos != 0 && layout.getItemTheta() != 0) {
+            final float seconds = (now - mLastScrollTimeNanos) / 1e9f;
+            if (seconds > 0)
+                velocity = Math.abs(dTheta / layout.getItemTheta()) / seconds;
+        }
+        mLastScrollTimeNanos = scrollState == RecyclerView.SCROLL_STATE_IDLE ? 0 : now;
+
+        final int first = layout.findFirstVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION)
+            return;
+
+        final int direction = scrollState == RecyclerView.SCROLL_STATE_IDLE ? 0 : (int) Math.signum(dTheta);
+        mWindow.prefetch(first, layout.findLastVisibleItemPosition(), direction, velocity);
+    }
+
+    @Override
+    public void onCountLoaded(int count) {
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public void onRangeLoaded(int start, int count) {
+        notifyItemRangeChanged(start, count);
+    }
+}
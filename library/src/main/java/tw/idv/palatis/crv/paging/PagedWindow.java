@@ -0,0 +1,302 @@
+package tw.idv.palatis.crv.paging;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * A bounded window of pages loaded from a {@link DataSource}.
+ * <p>
+ * Pages are loaded on the fetch {@link Executor} and handed back on the callback
+ * {@link Executor}. All the other methods, including the {@link Callback}, must be called on
+ * the callback thread, which is usually the main thread. Pages are kept in LRU order and the
+ * least recently used is evicted when more than {@code maxPages} are loaded.
+ *
+ * @param <T> the item type
+ */
+public class PagedWindow<T> {
+    private static final int UNKNOWN_COUNT = -1;
+
+    public interface DataSource<T> {
+        /**
+         * Called on the fetch executor.
+         *
+         * @return the total number of items
+         */
+        int loadCount();
+
+        /**
+         * Called on the fetch executor.
+         *
+         * @param start the first position to load
+         * @param count the number of items to load
+         * @return the items, may be shorter than {@code count} if the data source shrank
+         */
+        List<T> loadRange(int start, int count);
+    }
+
+    public interface Callback {
+        /**
+         * the total number of items was loaded, or reloaded after {@link #invalidate()}.
+         */
+        void onCountLoaded(int count);
+
+        /**
+         * items in the range were loaded, positions which were placeholders can be bound now.
+         */
+        void onRangeLoaded(int start, int count);
+    }
+
+    private final DataSource<T> mDataSource;
+    private final int mPageSize;
+    private final int mMaxPages;
+    private final Executor mFetchExecutor;
+    private final Executor mCallbackExecutor;
+
+    private final LinkedHashMap<Integer, List<T>> mPages;
+    private final Set<Integer> mLoadingPages = new HashSet<>();
+    private Callback mCallback;
+    private int mCount = UNKNOWN_COUNT;
+    private boolean mCountLoading = false;
+    private int mGeneration = 0;
+
+    private int mPrefetchDistance;
+    private long mPrefetchLookaheadMillis = 500;
+
+    /**
+     * @param dataSource       where the items come from
+     * @param pageSize         the number of items in a page
+     * @param maxPages         the maximum number of pages kept in memory
+     * @param fetchExecutor    runs the {@link DataSource} calls, usually a background thread
+     * @param callbackExecutor delivers the loaded pages, usually the main thread
+     */
+    public PagedWindow(DataSource<T> dataSource, int pageSize, final int maxPages, Executor fetchExecutor, Executor callbackExecutor) {
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("pageSize must be positive, got " + pageSize);
+        if (maxPages <= 0)
+            throw new IllegalArgumentException("maxPages must be positive, got " + maxPages);
+
+        mDataSource = dataSource;
+        mPageSize = pageSize;
+        mMaxPages = maxPages;
+        mFetchExecutor = fetchExecutor;
+        mCallbackExecutor = callbackExecutor;
+        mPrefetchDistance = pageSize / 2;
+        mPages = new LinkedHashMap<Integer, List<T>>(maxPages + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    public void setCallback(Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * @param distance the number of items kept loaded around the visible range when not
+     *                 scrolling, half a page by default.
+     */
+    public void setPrefetchDistance(int distance) {
+        mPrefetchDistance = Math.max(0, distance);
+    }
+
+    /**
+     * @param millis how far ahead in time to prefetch while scrolling, the prefetch distance in
+     *               the scroll direction grows by {@code velocity * millis}. 500ms by default.
+     */
+    public void setPrefetchLookahead(long millis) {
+        mPrefetchLookaheadMillis = Math.max(0, millis);
+    }
+
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * @return the total number of items, 0 until the count is loaded.
+     */
+    public int size() {
+        return mCount == UNKNOWN_COUNT ? 0 : mCount;
+    }
+
+    /**
+     * @return the number of pages currently in memory
+     */
+    public int getLoadedPageCount() {
+        return mPages.size();
+    }
+
+    public boolean isPageLoaded(int page) {
+        return mPages.containsKey(page);
+    }
+
+    /**
+     * @return the item at the position, or null if its page is still loading (a placeholder).
+     * a missing page is requested.
+     */
+    public T get(int position) {
+        final int page = position / mPageSize;
+        final List<T> items = mPages.get(page);
+        if (items == null) {
+            loadPage(page);
+            return null;
+        }
+        final int index = position - page * mPageSize;
+        return index < items.size() ? items.get(index) : null;
+    }
+
+    /**
+     * @return true if {@link #get(int)} would return a placeholder
+     */
+    public boolean isPlaceholder(int position) {
+        final List<T> items = mPages.get(position / mPageSize);
+        return items == null || position % mPageSize >= items.size();
+    }
+
+    /**
+     * make sure the pages around the visible range are loaded or loading.
+     *
+     * @param first     the first visible position
+     * @param last      the last visible position
+     * @param direction the scroll direction, positive towards higher positions, 0 if idle
+     * @param velocity  the scroll speed in items per second
+     */
+    public void prefetch(int first, int last, int direction, float velocity) {
+        if (mCount == UNKNOWN_COUNT) {
+            loadCount();
+            return;
+        }
+        if (mCount == 0 || first > last)
+            return;
+
+        final int ahead = mPrefetchDistance + (int) (Math.abs(velocity) * mPrefetchLookaheadMillis / 1000);
+        final int before = Math.max(0, (direction < 0 ? first - ahead : first - mPrefetchDistance) / mPageSize);
+        final int after = Math.min(mCount - 1, direction > 0 ? last + ahead : last + mPrefetchDistance) / mPageSize;
+        final int firstPage = Math.max(0, first / mPageSize);
+        final int lastPage = Math.min(mCount - 1, last) / mPageSize;
+
+        // visible pages first, they also become the most recently used; then the scroll direction.
+        int budget = mMaxPages;
+        for (int page = firstPage; page <= lastPage && budget > 0; ++page, --budget)
+            touchPage(page);
+        if (direction < 0) {
+            for (int page = firstPage - 1; page >= before && budget > 0; --page, --budget)
+                touchPage(page);
+            for (int page = lastPage + 1; page <= after && budget > 0; ++page, --budget)
+                touchPage(page);
+        } else {
+            for (int page = lastPage + 1; page <= after && budget > 0; ++page, --budget)
+                touchPage(page);
+            for (int page = firstPage - 1; page >= before && budget > 0; --page, --budget)
+                touchPage(page);
+        }
+    }
+
+    /**
+     * drop everything and reload the count, pages still loading are ignored when they arrive.
+     */
+    public void invalidate() {
+        ++mGeneration;
+        mPages.clear();
+        mLoadingPages.clear();
+        mCount = UNKNOWN_COUNT;
+        mCountLoading = false;
+        loadCount();
+    }
+
+    private void touchPage(int page) {
+        if (mPages.get(page) == null)
+            loadPage(page);
+    }
+
+    private void loadCount() {
+        if (mCountLoading)
+            return;
+
+        mCountLoading = true;
+        final int generation = mGeneration;
+        mFetchExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                int loaded;
+                try {
+                    loaded = mDataSource.loadCount();
+                } catch (RuntimeException ex) {
+                    // don't take the worker down, the next bind or prefetch asks again.
+                    loaded = UNKNOWN_COUNT;
+                }
+                final int count = loaded;
+                mCallbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onCountLoaded(generation, count);
+                    }
+                });
+            }
+        });
+    }
+
+    private void onCountLoaded(int generation, int count) {
+        if (generation != mGeneration)
+            return;
+
+        mCountLoading = false;
+        if (count == UNKNOWN_COUNT)
+            return;
+
+        mCount = Math.max(0, count);
+        if (mCallback != null)
+            mCallback.onCountLoaded(mCount);
+    }
+
+    private void loadPage(final int page) {
+        if (mCount == UNKNOWN_COUNT) {
+            loadCount();
+            return;
+        }
+        final int start = page * mPageSize;
+        if (page < 0 || start >= mCount || mLoadingPages.contains(page))
+            return;
+
+        mLoadingPages.add(page);
+        final int count = Math.min(mPageSize, mCount - start);
+        final int generation = mGeneration;
+        mFetchExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<T> items;
+                try {
+                    items = mDataSource.loadRange(start, count);
+                } catch (RuntimeException ex) {
+                    // a failed page is forgotten, so the next bind or prefetch asks again.
+                    items = null;
+                }
+                final List<T> loaded = items;
+                mCallbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onPageLoaded(generation, page, loaded);
+                    }
+                });
+            }
+        });
+    }
+
+    private void onPageLoaded(int generation, int page, List<T> items) {
+        if (generation != mGeneration)
+            return;
+
+        mLoadingPages.remove(page);
+        if (items == null)
+            return;
+
+        mPages.put(page, items);
+        if (mCallback != null && !items.isEmpty())
+            mCallback.onRangeLoaded(page * mPageSize, items.size());
+    }
+}
@@ -0,0 +1,21 @@
+package tw.idv.palatis.crv.transformers;
+
+import android.support.v7.widget.CircularLayoutManager;
+import android.view.View;
+
+/**
+ * Applies several transformers one after another.
+ */
+public class CompositeTransformer implements CircularLayoutManager.ItemTransformer {
+    private final CircularLayoutManager.ItemTransformer[] mTransformers;
+
+    public CompositeTransformer(CircularLayoutManager.ItemTransformer... transformers) {
+        mTransformers = transformers.clone();
+    }
+
+    @Override
+    public void transformItem(View view, float theta, float offset) {
+        for (final CircularLayoutManager.ItemTransformer transformer : mTransformers)
+            transformer.transformItem(view, theta, offset);
+    }
+}
@@ -0,0 +1,27 @@
+package tw.idv.palatis.crv.transformers;
+
+import android.support.v7.widget.CircularLayoutManager;
+import android.view.View;
+
+/**
+ * Fades the items out as they leave the sweep area.
+ */
+public class FadeTransformer implements CircularLayoutManager.ItemTransformer {
+    private final float mMinAlpha;
+
+    public FadeTransformer() {
+        this(0.0f);
+    }
+
+    /**
+     * @param minAlpha the alpha of an item which is completely outside the sweep area
+     */
+    public FadeTransformer(float minAlpha) {
+        mMinAlpha = minAlpha;
+    }
+
+    @Override
+    public void transformItem(View view, float theta, float offset) {
+        view.setAlpha(mMinAlpha + (1.0f - mMinAlpha) * offset);
+    }
+}
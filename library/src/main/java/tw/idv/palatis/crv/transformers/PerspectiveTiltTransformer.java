@@ -0,0 +1,31 @@
+package tw.idv.palatis.crv.transformers;
+
+import android.support.v7.widget.CircularLayoutManager;
+import android.view.View;
+
+/**
+ * Tilts the items around their radial axis as they leave the sweep area, like cards on a
+ * turntable turning away from the viewer.
+ */
+public class PerspectiveTiltTransformer implements CircularLayoutManager.ItemTransformer {
+    private final float mMaxDegrees;
+
+    public PerspectiveTiltTransformer() {
+        this(60.0f);
+    }
+
+    /**
+     * @param maxDegrees the tilt of an item which is completely outside the sweep area
+     */
+    public PerspectiveTiltTransformer(float maxDegrees) {
+        mMaxDegrees = maxDegrees;
+    }
+
+    @Override
+    public void transformItem(View view, float theta, float offset) {
+        final float tilt = (1.0f - offset) * mMaxDegrees;
+        // split the tilt around the radial axis into the view's own x and y axes.
+        view.setRotationX((float) -Math.sin(theta) * tilt);
+        view.setRotationY((float) Math.cos(theta) * tilt);
+    }
+}
@@ -0,0 +1,29 @@
+package tw.idv.palatis.crv.transformers;
+
+import android.support.v7.widget.CircularLayoutManager;
+import android.view.View;
+
+/**
+ * Rotates the items so their top always points away from the layout center.
+ */
+public class RadialRotationTransformer implements CircularLayoutManager.ItemTransformer {
+    private final float mDegrees;
+
+    public RadialRotationTransformer() {
+        this(0.0f);
+    }
+
+    /**
+     * @param degrees additional clockwise rotation applied to every item, 180 to point the top of
+     *                the items to the layout center instead.
+     */
+    public RadialRotationTransformer(float degrees) {
+        mDegrees = degrees;
+    }
+
+    @Override
+    public void transformItem(View view, float theta, float offset) {
+        // theta is counterclockwise from 3 o'clock, view rotation is clockwise from 12 o'clock.
+        view.setRotation(90.0f - (float) Math.toDegrees(theta) + mDegrees);
+    }
+}
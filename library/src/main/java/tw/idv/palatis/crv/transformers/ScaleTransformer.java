@@ -0,0 +1,31 @@
+package tw.idv.palatis.crv.transformers;
+
+import android.support.v7.widget.CircularLayoutManager;
+import android.view.View;
+
+/**
+ * Scales the items down as they leave the sweep area, on top of the magnification of the
+ * fisheye warp if enabled.
+ */
+public class ScaleTransformer implements CircularLayoutManager.ItemTransformer {
+    private final float mMinScale;
+
+    public ScaleTransformer() {
+        this(0.0f);
+    }
+
+    /**
+     * @param minScale the scale of an item which is completely outside the sweep area
+     */
+    public ScaleTransformer(float minScale) {
+        mMinScale = minScale;
+    }
+
+    @Override
+    public void transformItem(View view, float theta, float offset) {
+        final CircularLayoutManager.LayoutParams lp = (CircularLayoutManager.LayoutParams) view.getLayoutParams();
+        final float scale = (mMinScale + (1.0f - mMinScale) * offset) * lp.getLayoutScale();
+        view.setScaleX(scale);
+        view.setScaleY(scale);
+    }
+}
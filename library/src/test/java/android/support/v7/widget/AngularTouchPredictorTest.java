@@ -0,0 +1,146 @@
+package android.support.v7.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AngularTouchPredictorTest {
+    private static final long FRAME = 8000000L;
+    private static final float EPSILON = 1e-4f;
+
+    private AngularTouchPredictor mPredictor;
+
+    @Before
+    public void setUp() throws Exception {
+        mPredictor = new AngularTouchPredictor();
+        mPredictor.setMaxPrediction((float) Math.PI);
+    }
+
+    private static float seconds(long nanos) {
+        return nanos / 1e9f;
+    }
+
+    @Test
+    public void nothingToPredictWithoutSamples() throws Exception {
+        assertEquals(0.0f, mPredictor.predict(FRAME), 0.0f);
+    }
+
+    @Test
+    public void singleSampleIsNotExtrapolated() throws Exception {
+        mPredictor.addSample(0, 0.5f);
+        assertEquals(0.5f, mPredictor.predict(2 * FRAME), 0.0f);
+    }
+
+    @Test
+    public void constantVelocityIsExtrapolated() throws Exception {
+        final float velocity = 2.0f;
+        for (int i = 0; i < 3; ++i)
+            mPredictor.addSample(i * FRAME, velocity * seconds(i * FRAME));
+
+        assertEquals(velocity * seconds(4 * FRAME), mPredictor.predict(4 * FRAME), EPSILON);
+    }
+
+    @Test
+    public void constantAccelerationIsExtrapolated() throws Exception {
+        final float velocity = 1.0f;
+        final float acceleration = 20.0f;
+        for (int i = 0; i < 3; ++i) {
+            final float t = seconds(i * FRAME);
+            mPredictor.addSample(i * FRAME, velocity * t + acceleration * t * t / 2);
+        }
+
+        final float t = seconds(4 * FRAME);
+        assertEquals(velocity * t + acceleration * t * t / 2, mPredictor.predict(4 * FRAME), EPSILON);
+    }
+
+    @Test
+    public void decelerationStopsAtTheStop() throws Exception {
+        // theta = t - 25 t^2, stops at t = 20ms, theta = 0.01
+        for (int i = 0; i < 3; ++i) {
+            final float t = seconds(i * FRAME);
+            mPredictor.addSample(i * FRAME, t - 25 * t * t);
+        }
+
+        assertEquals(0.01f, mPredictor.predict(6 * FRAME), EPSILON);
+    }
+
+    @Test
+    public void directionChangeHalvesTheVelocity() throws Exception {
+        mPredictor.addSample(0, 0.0f);
+        mPredictor.addSample(FRAME, 0.01f);
+        mPredictor.addSample(2 * FRAME, 0.0f);
+
+        // the last velocity is -0.01 / FRAME, halved, for one frame
+        assertEquals(-0.005f, mPredictor.predict(3 * FRAME), EPSILON);
+    }
+
+    @Test
+    public void dampingScalesTheExtrapolation() throws Exception {
+        for (int i = 0; i < 3; ++i)
+            mPredictor.addSample(i * FRAME, 0.01f * i);
+
+        mPredictor.setDamping(0.5f);
+        assertEquals(0.02f + 0.005f, mPredictor.predict(3 * FRAME), EPSILON);
+        mPredictor.setDamping(0.0f);
+        assertEquals(0.02f, mPredictor.predict(3 * FRAME), 0.0f);
+    }
+
+    @Test
+    public void predictionIsClamped() throws Exception {
+        mPredictor.setMaxPrediction(-0.001f);
+        assertEquals(0.001f, mPredictor.getMaxPrediction(), 0.0f);
+        for (int i = 0; i < 3; ++i)
+            mPredictor.addSample(i * FRAME, -0.01f * i);
+
+        assertEquals(-0.02f - 0.001f, mPredictor.predict(3 * FRAME), EPSILON);
+    }
+
+    @Test
+    public void sameTimestampTakesTheNewerPosition() throws Exception {
+        mPredictor.addSample(0, 0.0f);
+        mPredictor.addSample(FRAME, 0.01f);
+        mPredictor.addSample(FRAME, 0.02f);
+
+        assertEquals(0.04f, mPredictor.predict(2 * FRAME), EPSILON);
+    }
+
+    @Test
+    public void resetForgetsTheSamples() throws Exception {
+        mPredictor.addSample(0, 0.0f);
+        mPredictor.addSample(FRAME, 0.01f);
+        mPredictor.reset();
+        mPredictor.addSample(2 * FRAME, 1.0f);
+
+        assertEquals(1.0f, mPredictor.predict(3 * FRAME), 0.0f);
+    }
+
+    @Test
+    public void exactPredictionsBeatTheBaseline() throws Exception {
+        final float velocity = 2.0f;
+        for (int i = 0; i < 10; ++i) {
+            mPredictor.addSample(i * FRAME, velocity * seconds(i * FRAME));
+            mPredictor.predict((i + 1) * FRAME);
+        }
+
+        // the last prediction has no sample after it to compare against.
+        assertEquals(9, mPredictor.getErrorCount());
+        assertTrue(mPredictor.getMaxAbsoluteError() <= velocity * seconds(FRAME) + EPSILON);
+        assertTrue(mPredictor.getMeanAbsoluteError() < mPredictor.getMeanAbsoluteBaselineError());
+
+        mPredictor.resetMetrics();
+        assertEquals(0, mPredictor.getErrorCount());
+        assertEquals(0.0f, mPredictor.getMeanAbsoluteError(), 0.0f);
+    }
+
+    @Test
+    public void dampingOutOfRangeIsRejected() throws Exception {
+        try {
+            mPredictor.setDamping(1.5f);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+        assertEquals(1.0f, mPredictor.getDamping(), 0.0f);
+    }
+}
@@ -0,0 +1,103 @@
+package android.support.v7.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FisheyeWarpTest {
+    private static final float EPSILON = 1e-3f;
+    private static final float[] FOCI = {0.0f, 0.25f, 0.5f, 0.8f, 1.0f};
+    private static final float[] DISTORTIONS = {0.0f, 1.0f, 3.0f, 8.0f};
+
+    @Test
+    public void unwarpInvertsWarp() throws Exception {
+        for (float focus : FOCI) {
+            for (float distortion : DISTORTIONS) {
+                final FisheyeWarp warp = new FisheyeWarp(focus, distortion);
+                for (float w = -0.5f; w <= 1.5f; w += 1.0f / 97) {
+                    assertEquals("focus " + focus + ", distortion " + distortion + ", w " + w,
+                            w, warp.warp(warp.unwarp(w)), EPSILON);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void warpIsMonotonic() throws Exception {
+        for (float focus : FOCI) {
+            for (float distortion : DISTORTIONS) {
+                final FisheyeWarp warp = new FisheyeWarp(focus, distortion);
+                float last = warp.warp(-0.5f);
+                for (float u = -0.5f + 1.0f / 211; u <= 1.5f; u += 1.0f / 211) {
+                    final float w = warp.warp(u);
+                    assertTrue("focus " + focus + ", distortion " + distortion + ", u " + u, w > last);
+                    last = w;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void endsAndFocusStayPut() throws Exception {
+        for (float focus : FOCI) {
+            for (float distortion : DISTORTIONS) {
+                final FisheyeWarp warp = new FisheyeWarp(focus, distortion);
+                assertEquals(0.0f, warp.warp(0.0f), EPSILON);
+                assertEquals(1.0f, warp.warp(1.0f), EPSILON);
+                assertEquals(focus, warp.warp(focus), EPSILON);
+                assertEquals(focus, warp.unwarp(focus), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void focusIsMagnified() throws Exception {
+        for (float focus : FOCI) {
+            final FisheyeWarp warp = new FisheyeWarp(focus, 3.0f);
+            assertEquals(4.0f, warp.scale(focus), EPSILON);
+        }
+    }
+
+    @Test
+    public void focusOnAnEndOnlyWarpsOneSide() throws Exception {
+        final FisheyeWarp start = new FisheyeWarp(0.0f, 3.0f);
+        assertEquals(4.0f, start.scale(0.0f), EPSILON);
+        assertEquals(1.0f / 4.0f, start.scale(1.0f), EPSILON);
+
+        final FisheyeWarp end = new FisheyeWarp(1.0f, 3.0f);
+        assertEquals(1.0f / 4.0f, end.scale(0.0f), EPSILON);
+        assertEquals(4.0f, end.scale(1.0f), EPSILON);
+    }
+
+    @Test
+    public void outsideIsExtrapolatedLinearly() throws Exception {
+        final FisheyeWarp warp = new FisheyeWarp(0.3f, 2.0f);
+        final float startScale = warp.scale(0.0f);
+        final float endScale = warp.scale(1.0f);
+
+        assertEquals(startScale, warp.scale(-0.4f), 0.0f);
+        assertEquals(endScale, warp.scale(1.4f), 0.0f);
+        assertEquals(-0.4f * startScale, warp.warp(-0.4f), EPSILON);
+        assertEquals(1.0f + 0.4f * endScale, warp.warp(1.4f), EPSILON);
+        assertEquals(-0.4f, warp.unwarp(-0.4f * startScale), EPSILON);
+        assertEquals(1.4f, warp.unwarp(1.0f + 0.4f * endScale), EPSILON);
+    }
+
+    @Test
+    public void noDistortionIsIdentity() throws Exception {
+        final FisheyeWarp warp = new FisheyeWarp(0.5f, 0.0f);
+        for (float u = -0.5f; u <= 1.5f; u += 1.0f / 53) {
+            assertEquals(u, warp.warp(u), EPSILON);
+            assertEquals(u, warp.unwarp(u), EPSILON);
+            assertEquals(1.0f, warp.scale(u), EPSILON);
+        }
+    }
+
+    @Test
+    public void argumentsAreClamped() throws Exception {
+        final FisheyeWarp warp = new FisheyeWarp(-1.0f, -2.0f);
+        assertEquals(0.0f, warp.getFocus(), 0.0f);
+        assertEquals(0.0f, warp.getDistortion(), 0.0f);
+        assertEquals(1.0f, new FisheyeWarp(2.0f, 1.0f).getFocus(), 0.0f);
+    }
+}
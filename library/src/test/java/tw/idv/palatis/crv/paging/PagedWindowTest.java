@@ -0,0 +1,223 @@
+package tw.idv.palatis.crv.paging;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class PagedWindowTest {
+    private static final int PAGE_SIZE = 10;
+
+    private FakeDataSource mDataSource;
+    private QueuedExecutor mFetchExecutor;
+    private RecordingCallback mCallback;
+    private PagedWindow<String> mWindow;
+
+    @Before
+    public void setUp() throws Exception {
+        mDataSource = new FakeDataSource(1000);
+        mFetchExecutor = new QueuedExecutor();
+        mCallback = new RecordingCallback();
+        mWindow = new PagedWindow<>(mDataSource, PAGE_SIZE, 4, mFetchExecutor, DIRECT);
+        mWindow.setCallback(mCallback);
+        mWindow.setPrefetchDistance(0);
+        mWindow.setPrefetchLookahead(0);
+
+        mWindow.prefetch(0, -1, 0, 0);
+        mFetchExecutor.runAll();
+    }
+
+    @Test
+    public void countIsLoadedFirst() throws Exception {
+        assertEquals(1000, mWindow.size());
+        assertEquals(1000, mCallback.count);
+    }
+
+    @Test
+    public void placeholderUntilLoaded() throws Exception {
+        assertNull(mWindow.get(25));
+        assertTrue(mWindow.isPlaceholder(25));
+
+        mFetchExecutor.runAll();
+        assertEquals("item 25", mWindow.get(25));
+        assertFalse(mWindow.isPlaceholder(25));
+        assertEquals(20, mCallback.lastStart);
+        assertEquals(PAGE_SIZE, mCallback.lastCount);
+    }
+
+    @Test
+    public void pageLoadingIsNotRequestedTwice() throws Exception {
+        mWindow.get(0);
+        mWindow.get(5);
+        mWindow.prefetch(0, 9, 0, 0);
+        mFetchExecutor.runAll();
+        assertEquals(1, mDataSource.rangeLoads);
+    }
+
+    @Test
+    public void leastRecentlyUsedPageIsEvicted() throws Exception {
+        for (int page = 0; page < 4; ++page)
+            mWindow.get(page * PAGE_SIZE);
+        mFetchExecutor.runAll();
+        assertEquals(4, mWindow.getLoadedPageCount());
+
+        // page 0 is used again, so page 1 is the eldest
+        mWindow.get(0);
+        mWindow.get(4 * PAGE_SIZE);
+        mFetchExecutor.runAll();
+        assertEquals(4, mWindow.getLoadedPageCount());
+        assertTrue(mWindow.isPageLoaded(0));
+        assertFalse(mWindow.isPageLoaded(1));
+        assertTrue(mWindow.isPageLoaded(4));
+    }
+
+    @Test
+    public void prefetchFollowsScrollDirectionAndVelocity() throws Exception {
+        mWindow.setPrefetchDistance(5);
+        mWindow.setPrefetchLookahead(1000);
+
+        // 20 items/s forward, 20 items ahead and 5 behind.
+        mWindow.prefetch(50, 54, 1, 20);
+        mFetchExecutor.runAll();
+        assertTrue(mWindow.isPageLoaded(4));
+        assertTrue(mWindow.isPageLoaded(5));
+        assertTrue(mWindow.isPageLoaded(6));
+        assertTrue(mWindow.isPageLoaded(7));
+        assertFalse(mWindow.isPageLoaded(3));
+    }
+
+    @Test
+    public void prefetchNeverExceedsTheWindow() throws Exception {
+        mWindow.setPrefetchLookahead(1000);
+
+        mWindow.prefetch(100, 104, -1, 1000);
+        mFetchExecutor.runAll();
+        assertEquals(4, mDataSource.rangeLoads);
+        assertTrue(mWindow.isPageLoaded(10));
+        assertTrue(mWindow.isPageLoaded(7));
+        assertFalse(mWindow.isPageLoaded(6));
+    }
+
+    @Test
+    public void invalidateDropsPagesInFlight() throws Exception {
+        mWindow.get(0);
+        mWindow.invalidate();
+        mDataSource.count = 500;
+        mFetchExecutor.runAll();
+
+        assertEquals(500, mWindow.size());
+        assertFalse(mWindow.isPageLoaded(0));
+        assertNull(mWindow.get(0));
+    }
+
+    @Test
+    public void failedPageIsRequestedAgain() throws Exception {
+        mDataSource.fail = true;
+        mWindow.get(0);
+        mFetchExecutor.runAll();
+        assertFalse(mWindow.isPageLoaded(0));
+        assertEquals(1, mDataSource.rangeLoads);
+
+        mDataSource.fail = false;
+        assertNull(mWindow.get(0));
+        mFetchExecutor.runAll();
+        assertEquals(2, mDataSource.rangeLoads);
+        assertEquals("item 0", mWindow.get(0));
+    }
+
+    @Test
+    public void failedCountIsRequestedAgain() throws Exception {
+        mDataSource.countLoads = 0;
+        mDataSource.failCount = true;
+        mWindow.invalidate();
+        mFetchExecutor.runAll();
+        assertEquals(0, mWindow.size());
+        assertEquals(1, mDataSource.countLoads);
+
+        mDataSource.failCount = false;
+        assertNull(mWindow.get(0));
+        mFetchExecutor.runAll();
+        assertEquals(2, mDataSource.countLoads);
+        assertEquals(1000, mWindow.size());
+
+        mWindow.get(0);
+        mFetchExecutor.runAll();
+        assertEquals("item 0", mWindow.get(0));
+    }
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static class QueuedExecutor implements Executor {
+        final Queue<Runnable> queue = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            queue.add(command);
+        }
+
+        void runAll() {
+            Runnable command;
+            while ((command = queue.poll()) != null)
+                command.run();
+        }
+    }
+
+    private static class FakeDataSource implements PagedWindow.DataSource<String> {
+        int count;
+        int rangeLoads = 0;
+        int countLoads = 0;
+        boolean fail = false;
+        boolean failCount = false;
+
+        FakeDataSource(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public int loadCount() {
+            ++countLoads;
+            if (failCount)
+                throw new IllegalStateException("offline");
+            return count;
+        }
+
+        @Override
+        public List<String> loadRange(int start, int count) {
+            ++rangeLoads;
+            if (fail)
+                throw new IllegalStateException("offline");
+            final List<String> items = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i)
+                items.add("item " + (start + i));
+            return items;
+        }
+    }
+
+    private static class RecordingCallback implements PagedWindow.Callback {
+        int count = -1;
+        int lastStart = -1;
+        int lastCount = -1;
+
+        @Override
+        public void onCountLoaded(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public void onRangeLoaded(int start, int count) {
+            lastStart = start;
+            lastCount = count;
+        }
+    }
+}
@@ -12,6 +12,9 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import tw.idv.palatis.crv.CircularRecyclerView;
+import tw.idv.palatis.crv.transformers.CompositeTransformer;
+import tw.idv.palatis.crv.transformers.FadeTransformer;
+import tw.idv.palatis.crv.transformers.ScaleTransformer;
 import tw.idv.palatis.crv.utils.RadianUtils;
 
 public class MainActivity extends Activity {
@@ -25,6 +28,7 @@ public class MainActivity extends Activity {
 
         mRecyclerView = (CircularRecyclerView) findViewById(R.id.crv);
         mRecyclerView.setAdapter(mAdapter = new ItemAdapter());
+        mRecyclerView.getCircularLayoutManager().setItemTransformer(new CompositeTransformer(new ScaleTransformer(), new FadeTransformer()));
     }
 
     private static class ItemAdapter extends RecyclerView.Adapter<ItemAdapter.ViewHolder> {
@@ -57,9 +61,6 @@ public class MainActivity extends Activity {
             public void setLayoutAngle(float theta, float offset) {
                 Log.d("CRV", "setLayoutAngle(): theta = " + theta + " offset = " + offset + " pos = " + getAdapterPosition());
                 text2.setText(String.format("%.2f", RadianUtils.degreeFromRadian(theta)));
-                itemView.setScaleX(offset);
-                itemView.setScaleY(offset);
-                itemView.setAlpha(offset);
             }
         }
     }